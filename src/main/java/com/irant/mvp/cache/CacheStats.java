@@ -0,0 +1,7 @@
+package com.irant.mvp.cache;
+
+/**
+ * Point-in-time statistics of a {@link LoadingCache}
+ */
+public record CacheStats(long hits, long misses, long evictions, long loadFailures, int size) {
+}
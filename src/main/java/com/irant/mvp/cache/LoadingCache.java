@@ -0,0 +1,127 @@
+package com.irant.mvp.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded in-process cache with a per-key stampede guard.
+ * The first caller for a cold key runs the loader; concurrent callers for the same key
+ * wait on its result instead of issuing their own load. Failed loads are not cached.
+ */
+public class LoadingCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    public LoadingCache(int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Return the cached value for the key, loading it at most once across concurrent callers
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                hits.increment();
+                return await(entry.value);
+            }
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Entry<V> loading = new Entry<>(new CompletableFuture<>(), now + ttlNanos);
+        Entry<V> existing = entries.putIfAbsent(key, loading);
+        if (existing != null) {
+            // Another caller started the load first
+            return await(existing.value);
+        }
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+
+        try {
+            V value = loader.apply(key);
+            loading.value.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            // Une Error doit aussi compléter le futur, sinon les appelants suivants de la clé attendraient sans fin
+            entries.remove(key, loading);
+            loadFailures.increment();
+            loading.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), loadFailures.sum(), entries.size());
+    }
+
+    /**
+     * Drop expired entries first; if still over capacity, drop an arbitrary tenth of the loaded ones
+     */
+    private void evict(long now) {
+        entries.values().removeIf(e -> {
+            boolean expired = e.isExpired(now);
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (excess > 0 && it.hasNext()) {
+            if (it.next().value.isDone()) {
+                it.remove();
+                evictions.increment();
+                excess--;
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(CompletableFuture<V> value, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.irant.mvp.constants;
+
+public enum CarFacet {
+    CITY,
+    BRAND,
+    TRANSMISSION,
+    FUEL_TYPE,
+    SEATS,
+    PRICE_BAND
+}
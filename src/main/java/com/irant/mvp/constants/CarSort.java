@@ -0,0 +1,6 @@
+package com.irant.mvp.constants;
+
+public enum CarSort {
+    NEWEST,
+    PRICE
+}
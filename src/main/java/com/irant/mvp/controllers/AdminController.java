@@ -0,0 +1,48 @@
+package com.irant.mvp.controllers;
+
+import com.irant.mvp.dto.UserDto;
+import com.irant.mvp.models.Role;
+import com.irant.mvp.services.AuthService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final AuthService authService;
+
+    /**
+     * Grant a role to a user
+     * POST /api/admin/users/{id}/roles/{role}
+     */
+    @PostMapping("/users/{id:\\d+}/roles/{role}")
+    public ResponseEntity<UserDto> grantRole(@PathVariable Long id, @PathVariable Role.RoleName role) {
+        log.info("Grant role {} request for user: {}", role, id);
+        try {
+            return ResponseEntity.ok(authService.grantRole(id, role));
+        } catch (IllegalArgumentException e) {
+            log.warn("Role grant failed: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Deactivate a user account
+     * PATCH /api/admin/users/{id}/deactivate
+     */
+    @PatchMapping("/users/{id:\\d+}/deactivate")
+    public ResponseEntity<UserDto> deactivateUser(@PathVariable Long id) {
+        log.info("Deactivate request for user: {}", id);
+        try {
+            return ResponseEntity.ok(authService.deactivateUser(id));
+        } catch (IllegalArgumentException e) {
+            log.warn("User deactivation failed: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -2,13 +2,17 @@ package com.irant.mvp.controllers;
 
 import com.irant.mvp.dto.AgencyDto;
 import com.irant.mvp.dto.AgencyRequest;
+import com.irant.mvp.dto.EntityVersion;
+import com.irant.mvp.exceptions.CoalescedLoadTimeoutException;
 import com.irant.mvp.services.AgencyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @Slf4j
 @RestController
@@ -39,16 +43,26 @@ public class AgencyController {
     /**
      * Get current user's agency
      * GET /api/agencies/me
+     * Answers 304 to a matching If-None-Match / If-Modified-Since without reading the agency
      */
     @GetMapping("/me")
-    public ResponseEntity<AgencyDto> getMyAgency(Authentication authentication) {
+    public ResponseEntity<AgencyDto> getMyAgency(Authentication authentication, WebRequest webRequest) {
         try {
             String email = authentication.getName();
+            EntityVersion version = agencyService.getAgencyVersionByUserEmail(email)
+                    .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
+            String etag = EntityTags.strong(version);
+            long lastModified = EntityTags.lastModified(version.updatedAt());
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return EntityTags.validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, lastModified).build();
+            }
             AgencyDto agencyDto = agencyService.getAgencyByUserEmail(email);
-            return ResponseEntity.ok(agencyDto);
+            return EntityTags.validators(ResponseEntity.ok(), etag, lastModified).body(agencyDto);
         } catch (IllegalArgumentException | IllegalStateException e) {
             log.warn("Failed to get agency: {}", e.getMessage());
             return ResponseEntity.notFound().build();
+        } catch (CoalescedLoadTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         }
     }
 }
@@ -1,12 +1,17 @@
 package com.irant.mvp.controllers;
 
+import com.irant.mvp.dto.AvailabilityResponse;
+import com.irant.mvp.dto.BulkRegistrationReport;
 import com.irant.mvp.dto.LoginRequest;
 import com.irant.mvp.dto.LoginResponse;
 import com.irant.mvp.dto.RegisterRequest;
 import com.irant.mvp.dto.UserDto;
+import com.irant.mvp.exceptions.PasswordHashingBusyException;
 import com.irant.mvp.services.AuthService;
+import com.irant.mvp.services.BulkRegistrationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,6 +19,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/auth")
@@ -21,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final BulkRegistrationService bulkRegistrationService;
 
     /**
      * Register a new user
@@ -35,6 +43,44 @@ public class AuthController {
         } catch (IllegalArgumentException e) {
             log.warn("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Registration conflict: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (PasswordHashingBusyException e) {
+            log.warn("Registration rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /**
+     * Check whether an email and/or phone number is still free, e.g. while a sign-up form is being filled
+     * GET /api/auth/availability?email=...&phoneNumber=...
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(@RequestParam(required = false) String email,
+                                                                  @RequestParam(required = false) String phoneNumber) {
+        if ((email == null || email.isBlank()) && (phoneNumber == null || phoneNumber.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(authService.checkAvailability(email, phoneNumber));
+    }
+
+    /**
+     * Register many accounts at once, with one outcome per record (super admin only)
+     * POST /api/auth/register/bulk
+     */
+    @PostMapping("/register/bulk")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<BulkRegistrationReport> registerUsers(@RequestBody List<RegisterRequest> requests) {
+        log.info("Bulk register request for {} records", requests == null ? 0 : requests.size());
+        try {
+            return ResponseEntity.ok(bulkRegistrationService.registerAll(requests));
+        } catch (IllegalArgumentException e) {
+            log.warn("Bulk registration failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (PasswordHashingBusyException e) {
+            log.warn("Bulk registration rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         }
     }
 
@@ -51,6 +97,9 @@ public class AuthController {
         } catch (IllegalArgumentException e) {
             log.warn("Login failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (PasswordHashingBusyException e) {
+            log.warn("Login rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         }
     }
 
@@ -1,20 +1,52 @@
 package com.irant.mvp.controllers;
 
+import com.irant.mvp.constants.CarSort;
+import com.irant.mvp.dto.CarBulkChange;
+import com.irant.mvp.dto.CarBulkUpdateReport;
+import com.irant.mvp.dto.CarDetail;
+import com.irant.mvp.dto.CarFacets;
+import com.irant.mvp.dto.CarImportReport;
+import com.irant.mvp.dto.CarSearchCriteria;
+import com.irant.mvp.dto.CarSearchResult;
+import com.irant.mvp.dto.CarSummary;
+import com.irant.mvp.dto.EntityVersion;
+import com.irant.mvp.exceptions.CarVersionConflictException;
+import com.irant.mvp.exceptions.CoalescedLoadTimeoutException;
 import com.irant.mvp.models.Car;
+import com.irant.mvp.security.UserPrincipal;
+import com.irant.mvp.services.CarBulkUpdateService;
+import com.irant.mvp.services.CarCatalogueCache;
+import com.irant.mvp.services.CarExportService;
+import com.irant.mvp.services.CarImportService;
 import com.irant.mvp.services.CarService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/cars")
 @RequiredArgsConstructor
 public class CarController {
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+
     private final CarService carService;
+    private final CarImportService carImportService;
+    private final CarExportService carExportService;
+    private final CarCatalogueCache carCatalogueCache;
+    private final CarBulkUpdateService carBulkUpdateService;
 
     /**
      * Add car
@@ -27,25 +59,129 @@ public class CarController {
     }
 
     /**
-     * Get all available cars
-     * GET /api/cars/available
+     * Import a fleet from a JSON array of cars or a CSV file (header row, imageUrls separated by '|')
+     * POST /api/cars/import
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, CSV_MEDIA_TYPE})
+    public ResponseEntity<CarImportReport> importCars(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            Authentication authentication) {
+        CarImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(CSV_MEDIA_TYPE))
+                ? CarImportService.Format.CSV
+                : CarImportService.Format.JSON;
+        try {
+            return ResponseEntity.ok(carImportService.importCars(body, format, authentication.getName()));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Get available cars, one keyset page at a time
+     * GET /api/cars/available?sort=NEWEST|PRICE&city=&size=&cursor=
+     * Served from the in-memory catalogue cache: a cached page and its fingerprint answer both 304
+     * (matching If-None-Match / If-Modified-Since) and 200 with the pre-encoded bytes, gzipped when accepted
      */
     @GetMapping("/available")
-    public ResponseEntity<List<Car>> getAvailableCars() {
-        return ResponseEntity.ok(carService.getAllAvailableCars());
+    public ResponseEntity<byte[]> getAvailableCars(
+            @RequestParam(defaultValue = "NEWEST") CarSort sort,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+        try {
+            CarCatalogueCache.EncodedPage page = carCatalogueCache.getPage(sort, city, size, cursor);
+            String etag = EntityTags.weak(page.version());
+            long lastModified = EntityTags.lastModified(page.version().lastModified());
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return EntityTags.validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, lastModified).build();
+            }
+            ResponseEntity.BodyBuilder response = EntityTags.validators(ResponseEntity.ok(), etag, lastModified)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (page.gzipped() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.gzipped());
+            }
+            return response.body(page.json());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (CoalescedLoadTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /**
+     * Search cars by attributes; values of one attribute are OR-ed, attributes are AND-ed
+     * GET /api/cars/search?city=&brand=&transmission=&fuelType=&seats=&priceBand=&available=&page=&size=
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CarSearchResult<CarSummary>> searchCars(
+            @RequestParam(required = false) Set<String> city,
+            @RequestParam(required = false) Set<String> brand,
+            @RequestParam(required = false) Set<String> transmission,
+            @RequestParam(required = false) Set<String> fuelType,
+            @RequestParam(required = false) Set<Integer> seats,
+            @RequestParam(required = false) Set<String> priceBand,
+            @RequestParam(defaultValue = "true") Boolean available,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        CarSearchCriteria criteria = toCriteria(city, brand, transmission, fuelType, seats, priceBand, available);
+        try {
+            return ResponseEntity.ok(carService.searchCars(criteria, page, size));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Count cars per brand, fuel type, transmission, city, seats and price band for a filter
+     * GET /api/cars/facets?city=&brand=&transmission=&fuelType=&seats=&priceBand=&available=
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<CarFacets> getFacets(
+            @RequestParam(required = false) Set<String> city,
+            @RequestParam(required = false) Set<String> brand,
+            @RequestParam(required = false) Set<String> transmission,
+            @RequestParam(required = false) Set<String> fuelType,
+            @RequestParam(required = false) Set<Integer> seats,
+            @RequestParam(required = false) Set<String> priceBand,
+            @RequestParam(defaultValue = "true") Boolean available) {
+        CarSearchCriteria criteria = toCriteria(city, brand, transmission, fuelType, seats, priceBand, available);
+        try {
+            return ResponseEntity.ok(carService.getFacets(criteria));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     /**
      * Get car by ID
      * GET /api/cars/{id}
+     * Answers 304 to a matching If-None-Match / If-Modified-Since without reading the car;
+     * 503 with Retry-After when an identical in-flight load does not finish in time
      */
     @GetMapping("/{id:\\d+}")
-    public ResponseEntity<Car> getCarById(@PathVariable Long id) {
+    public ResponseEntity<CarDetail> getCarById(@PathVariable Long id, WebRequest webRequest) {
         try {
-            Car car = carService.getCarById(id);
-            return ResponseEntity.ok(car);
+            EntityVersion version = carService.getCarVersion(id).orElse(null);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = EntityTags.strong(version);
+            long lastModified = EntityTags.lastModified(version.updatedAt());
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return EntityTags.validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, lastModified).build();
+            }
+            CarDetail car = carService.getCarById(id);
+            return EntityTags.validators(ResponseEntity.ok(), etag, lastModified).body(car);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (CoalescedLoadTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         }
     }
 
@@ -53,16 +189,33 @@ public class CarController {
      * Update car
      * PUT /api/cars/{id}
      * EPIC B3: Create update car API
+     * Version-checked when the request carries If-Match (the car's ETag) or a version in the body: the update
+     * applies only if the car is still at that version, otherwise 412 (If-Match) or 409 (body version),
+     * both with the current ETag so the client can re-read and retry. The response carries the new ETag
      */
     @PutMapping("/{id:\\d+}")
     public ResponseEntity<Car> updateCar(
             @PathVariable Long id,
             @RequestBody Car carUpdate,
-            Authentication authentication) {
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long expectedVersion = carUpdate.getVersion();
+        if (ifMatch != null && !ifMatch.isBlank()) {
+            expectedVersion = EntityTags.versionOf(ifMatch, id);
+            if (expectedVersion != null && expectedVersion < 0) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
         try {
-            String email = authentication.getName();
-            Car updatedCar = carService.updateCar(id, carUpdate, email);
-            return ResponseEntity.ok(updatedCar);
+            Car updatedCar = carService.updateCar(id, carUpdate, principal.getId(), expectedVersion);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            carService.readCarVersion(id).ifPresent(version -> response.eTag(EntityTags.strong(version)));
+            return response.body(updatedCar);
+        } catch (CarVersionConflictException e) {
+            HttpStatus status = ifMatch != null && !ifMatch.isBlank()
+                    ? HttpStatus.PRECONDITION_FAILED
+                    : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status).eTag(EntityTags.strong(e.getCurrent())).build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
@@ -74,15 +227,28 @@ public class CarController {
      * Deactivate car
      * PATCH /api/cars/{id}/deactivate
      * EPIC B3: Create deactivate car API
+     * Version-checked when the request carries If-Match: 412 with the current ETag if the car changed since.
+     * The response carries the new ETag
      */
     @PatchMapping("/{id:\\d+}/deactivate")
     public ResponseEntity<Car> deactivateCar(
             @PathVariable Long id,
-            Authentication authentication) {
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.isBlank()) {
+            expectedVersion = EntityTags.versionOf(ifMatch, id);
+            if (expectedVersion != null && expectedVersion < 0) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
         try {
-            String email = authentication.getName();
-            Car deactivatedCar = carService.deactivateCar(id, email);
-            return ResponseEntity.ok(deactivatedCar);
+            Car deactivatedCar = carService.deactivateCar(id, principal.getId(), expectedVersion);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            carService.readCarVersion(id).ifPresent(version -> response.eTag(EntityTags.strong(version)));
+            return response.body(deactivatedCar);
+        } catch (CarVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(EntityTags.strong(e.getCurrent())).build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
@@ -90,6 +256,24 @@ public class CarController {
         }
     }
 
+    /**
+     * Change availability, price or city of many cars of the caller's agency in one transaction
+     * PATCH /api/cars/bulk
+     * Body: [{"id": 1, "isAvailable": false, "pricePerDay": 45.00, "city": "Tunis"}, ...]; null fields are kept
+     */
+    @PatchMapping("/bulk")
+    public ResponseEntity<CarBulkUpdateReport> updateCars(
+            @RequestBody List<CarBulkChange> changes,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            return ResponseEntity.ok(carBulkUpdateService.updateCars(changes, principal.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
     /**
      * Get cars by agency
      * GET /api/cars/agency
@@ -105,4 +289,39 @@ public class CarController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Export the agency's whole fleet, streamed one car per line
+     * GET /api/cars/agency/export?format=NDJSON|CSV
+     */
+    @GetMapping("/agency/export")
+    public ResponseEntity<StreamingResponseBody> exportFleet(
+            @RequestParam(defaultValue = "NDJSON") CarExportService.Format format,
+            Authentication authentication) {
+        Long agencyId;
+        try {
+            agencyId = carExportService.resolveAgencyId(authentication.getName());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean csv = format == CarExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=fleet." + (csv ? "csv" : "ndjson"))
+                .body(out -> carExportService.writeFleet(agencyId, format, out));
+    }
+
+    private static CarSearchCriteria toCriteria(Set<String> city, Set<String> brand, Set<String> transmission,
+                                                Set<String> fuelType, Set<Integer> seats, Set<String> priceBand,
+                                                Boolean available) {
+        return CarSearchCriteria.builder()
+                .cities(city)
+                .brands(brand)
+                .transmissions(transmission)
+                .fuelTypes(fuelType)
+                .seats(seats)
+                .priceBands(priceBand)
+                .available(available)
+                .build();
+    }
 }
\ No newline at end of file
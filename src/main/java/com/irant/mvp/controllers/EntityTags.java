@@ -0,0 +1,78 @@
+package com.irant.mvp.controllers;
+
+import com.irant.mvp.dto.CollectionVersion;
+import com.irant.mvp.dto.EntityVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * ETag and Last-Modified values derived from modification times, for conditional requests.
+ * Single entities get a strong tag ("id-version-millis", the version being the optimistic-lock version, which
+ * lets a write turn If-Match into an atomic compare-and-set); collections get a weak one ("count-millis")
+ * since two equal fingerprints only guarantee an equivalent representation.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String strong(EntityVersion version) {
+        return "\"" + version.id() + "-" + version.version() + "-" + millis(version.updatedAt()) + "\"";
+    }
+
+    static String weak(CollectionVersion version) {
+        return "W/\"" + version.count() + "-" + millis(version.lastModified()) + "\"";
+    }
+
+    /**
+     * Set ETag, Last-Modified and a Cache-Control letting the client store the body but revalidate on each use
+     * (otherwise Spring Security's default no-store would stop clients from sending conditional requests)
+     */
+    static <B extends ResponseEntity.HeadersBuilder<B>> B validators(B builder, String etag, long lastModified) {
+        builder.eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    /**
+     * Last-Modified value; -1 (no header) when unknown
+     */
+    static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Optimistic-lock version carried by an If-Match header for the given entity; null for "*",
+     * -1 when no single strong tag of that entity can be read from it (the precondition then fails).
+     * Only the entity's own version is compared: the modification time part also follows related entities
+     */
+    static Long versionOf(String ifMatch, Long id) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        // If-Match compare en mode fort : une étiquette faible (W/"...") ne correspond jamais
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.indexOf(',') >= 0) {
+            return -1L;
+        }
+        String rest = tag.substring(prefix.length(), tag.length() - 1);
+        int separator = rest.indexOf('-');
+        try {
+            return separator > 0 ? Long.parseLong(rest.substring(0, separator)) : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    // Fuseau fixe : seule la stabilité de la valeur compte
+    private static long millis(LocalDateTime time) {
+        return time == null ? 0 : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
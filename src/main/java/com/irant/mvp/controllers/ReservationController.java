@@ -0,0 +1,117 @@
+package com.irant.mvp.controllers;
+
+import com.irant.mvp.dto.ReservationDto;
+import com.irant.mvp.dto.ReservationRequest;
+import com.irant.mvp.exceptions.ReservationConflictException;
+import com.irant.mvp.security.UserPrincipal;
+import com.irant.mvp.services.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    /**
+     * Book a car for a date range
+     * POST /api/reservations
+     */
+    @PostMapping
+    public ResponseEntity<ReservationDto> book(@RequestBody ReservationRequest request,
+                                               @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            ReservationDto reservation = reservationService.book(request, principal.getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (ReservationConflictException e) {
+            log.info("Booking conflict: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Booking failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Hold a car for a date range during checkout
+     * POST /api/reservations/holds
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<ReservationDto> hold(@RequestBody ReservationRequest request,
+                                               @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            ReservationDto reservation = reservationService.hold(request, principal.getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (ReservationConflictException e) {
+            log.info("Hold conflict: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Hold failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Confirm a pending hold before it expires
+     * POST /api/reservations/{id}/confirm
+     */
+    @PostMapping("/{id:\\d+}/confirm")
+    public ResponseEntity<ReservationDto> confirm(@PathVariable Long id,
+                                                  @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            return ResponseEntity.ok(reservationService.confirm(id, principal.getId()));
+        } catch (ReservationConflictException e) {
+            log.info("Confirm conflict: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Get current renter's reservations
+     * GET /api/reservations/me
+     */
+    @GetMapping("/me")
+    public ResponseEntity<List<ReservationDto>> getMyReservations(@AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            return ResponseEntity.ok(reservationService.getMyReservations(principal.getId()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Cancel a reservation; 409 when it is already cancelled, expired or over
+     * PATCH /api/reservations/{id}/cancel
+     */
+    @PatchMapping("/{id:\\d+}/cancel")
+    public ResponseEntity<ReservationDto> cancel(@PathVariable Long id,
+                                                 @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            return ResponseEntity.ok(reservationService.cancel(id, principal.getId()));
+        } catch (ReservationConflictException e) {
+            log.info("Cancel conflict: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class AgencyDto {
     private String phoneNumber;
     private String city;
     private Long userId;
+    private Long version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
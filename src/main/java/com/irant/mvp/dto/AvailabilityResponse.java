@@ -0,0 +1,15 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailabilityResponse {
+    private Boolean emailAvailable;
+    private Boolean phoneNumberAvailable;
+}
@@ -0,0 +1,9 @@
+package com.irant.mvp.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Date range [startDate, endDate) occupied by a reservation, as held in the availability index
+ */
+public record BookedInterval(Long reservationId, LocalDate startDate, LocalDate endDate) {
+}
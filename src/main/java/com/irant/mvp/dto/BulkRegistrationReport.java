@@ -0,0 +1,24 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkRegistrationReport {
+    private int total;
+    private int created;
+    private int failed;
+    private List<RecordResult> records;
+
+    /**
+     * Outcome of one record (0-based position in the request); userId is set when the account was created
+     */
+    public record RecordResult(int index, String email, Long userId, String error) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * One car of a bulk update; null fields are left unchanged
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarBulkChange {
+    private Long id;
+    private Boolean isAvailable;
+    private BigDecimal pricePerDay;
+    private String city;
+}
@@ -0,0 +1,25 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarBulkUpdateReport {
+    private int total;
+    private int updated;
+    private int failed;
+    private List<Long> updatedIds;
+    private List<Rejection> rejected;
+
+    /**
+     * A change that was not applied (0-based position in the request)
+     */
+    public record Rejection(int index, Long carId, String error) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.irant.mvp.dto;
+
+import com.irant.mvp.constants.CarSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the available-cars listing: the sort key and id of the last row served.
+ * Encoded as an opaque URL-safe token so clients never depend on its layout.
+ */
+public record CarCursor(CarSort sort, LocalDateTime createdAt, BigDecimal pricePerDay, Long id) {
+
+    public static CarCursor after(CarSort sort, LocalDateTime createdAt, BigDecimal pricePerDay, Long id) {
+        return sort == CarSort.PRICE
+                ? new CarCursor(sort, null, pricePerDay, id)
+                : new CarCursor(sort, createdAt, null, id);
+    }
+
+    public String encode() {
+        String key = sort == CarSort.PRICE ? pricePerDay.toPlainString() : createdAt.toString();
+        String raw = sort.name() + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CarCursor decode(String token, CarSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            CarSort sort = CarSort.valueOf(parts[0]);
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor does not match sort " + expectedSort);
+            }
+            Long id = Long.valueOf(parts[2]);
+            return sort == CarSort.PRICE
+                    ? new CarCursor(sort, null, new BigDecimal(parts[1]), id)
+                    : new CarCursor(sort, LocalDateTime.parse(parts[1]), null, id);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.irant.mvp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full view of one car with its agency contact and images, read by constructor projection
+ */
+public record CarDetail(
+        Long id,
+        Long version,
+        String brand,
+        String model,
+        Integer year,
+        BigDecimal pricePerDay,
+        String transmission,
+        String fuelType,
+        Integer seatingCapacity,
+        String color,
+        String licensePlate,
+        BigDecimal rangeInMiles,
+        String description,
+        Boolean isAvailable,
+        String city,
+        Long agencyId,
+        String agencyName,
+        String agencyCity,
+        String agencyPhoneNumber,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        List<String> imageUrls) {
+
+    // Used by the JPQL projection; images are read by a second query
+    public CarDetail(Long id, Long version, String brand, String model, Integer year, BigDecimal pricePerDay,
+                     String transmission, String fuelType, Integer seatingCapacity, String color,
+                     String licensePlate, BigDecimal rangeInMiles, String description, Boolean isAvailable,
+                     String city, Long agencyId, String agencyName, String agencyCity, String agencyPhoneNumber,
+                     LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, version, brand, model, year, pricePerDay, transmission, fuelType, seatingCapacity, color,
+                licensePlate, rangeInMiles, description, isAvailable, city, agencyId, agencyName, agencyCity,
+                agencyPhoneNumber, createdAt, updatedAt, List.of());
+    }
+
+    public CarDetail withImageUrls(List<String> imageUrls) {
+        return new CarDetail(id, version, brand, model, year, pricePerDay, transmission, fuelType, seatingCapacity,
+                color, licensePlate, rangeInMiles, description, isAvailable, city, agencyId, agencyName, agencyCity,
+                agencyPhoneNumber, createdAt, updatedAt, List.copyOf(imageUrls));
+    }
+}
@@ -0,0 +1,34 @@
+package com.irant.mvp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One car of a fleet export with its images; field names match the bulk import columns
+ */
+public record CarExport(
+        Long id,
+        String brand,
+        String model,
+        Integer year,
+        BigDecimal pricePerDay,
+        String transmission,
+        String fuelType,
+        Integer seatingCapacity,
+        String color,
+        String licensePlate,
+        BigDecimal rangeInMiles,
+        String description,
+        Boolean isAvailable,
+        String city,
+        List<String> imageUrls,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public static CarExport of(CarExportRow row, List<String> imageUrls) {
+        return new CarExport(row.id(), row.brand(), row.model(), row.year(), row.pricePerDay(), row.transmission(),
+                row.fuelType(), row.seatingCapacity(), row.color(), row.licensePlate(), row.rangeInMiles(),
+                row.description(), row.isAvailable(), row.city(), imageUrls, row.createdAt(), row.updatedAt());
+    }
+}
@@ -0,0 +1,28 @@
+package com.irant.mvp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One (car, image) pair of a fleet export, read by constructor projection ordered by car id.
+ * imageUrl is null for a car without images.
+ */
+public record CarExportRow(
+        Long id,
+        String brand,
+        String model,
+        Integer year,
+        BigDecimal pricePerDay,
+        String transmission,
+        String fuelType,
+        Integer seatingCapacity,
+        String color,
+        String licensePlate,
+        BigDecimal rangeInMiles,
+        String description,
+        Boolean isAvailable,
+        String city,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String imageUrl) {
+}
@@ -0,0 +1,19 @@
+package com.irant.mvp.dto;
+
+import com.irant.mvp.constants.CarFacet;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarFacets {
+    // Number of cars matching the whole filter
+    private long total;
+    // Per facet, the number of matching cars for each value, most frequent first
+    private Map<CarFacet, Map<String, Long>> counts;
+}
@@ -0,0 +1,24 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarImportReport {
+    private int total;
+    private int imported;
+    private int failed;
+    private List<RowResult> rows;
+
+    /**
+     * Outcome of one input row (1-based, header excluded); carId is set when the row was imported
+     */
+    public record RowResult(int row, Long carId, String error) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarImportRow {
+    private String brand;
+    private String model;
+    private Integer year;
+    private BigDecimal pricePerDay;
+    private String transmission;
+    private String fuelType;
+    private Integer seatingCapacity;
+    private String color;
+    private String licensePlate;
+    private BigDecimal rangeInMiles;
+    private String description;
+    private Boolean isAvailable;
+    private String city;
+    private List<String> imageUrls;
+}
@@ -0,0 +1,17 @@
+package com.irant.mvp.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Searchable attributes of a car, read by constructor projection to feed the in-memory search index
+ */
+public record CarIndexRow(
+        Long id,
+        String city,
+        String brand,
+        String transmission,
+        String fuelType,
+        Integer seatingCapacity,
+        BigDecimal pricePerDay,
+        Boolean isAvailable) {
+}
@@ -0,0 +1,17 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,52 @@
+package com.irant.mvp.dto;
+
+import com.irant.mvp.constants.CarFacet;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Car search filter: values of one attribute are OR-ed, attributes are AND-ed together
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarSearchCriteria {
+    private Set<String> cities;
+    private Set<String> brands;
+    private Set<String> transmissions;
+    private Set<String> fuelTypes;
+    private Set<Integer> seats;
+    private Set<String> priceBands;
+    // null means any availability
+    private Boolean available;
+
+    /**
+     * Non-empty attribute filters keyed by facet
+     */
+    public Map<CarFacet, Set<String>> filters() {
+        Map<CarFacet, Set<String>> filters = new EnumMap<>(CarFacet.class);
+        put(filters, CarFacet.CITY, cities);
+        put(filters, CarFacet.BRAND, brands);
+        put(filters, CarFacet.TRANSMISSION, transmissions);
+        put(filters, CarFacet.FUEL_TYPE, fuelTypes);
+        if (seats != null) {
+            put(filters, CarFacet.SEATS, seats.stream().map(String::valueOf).collect(Collectors.toSet()));
+        }
+        put(filters, CarFacet.PRICE_BAND, priceBands);
+        return filters;
+    }
+
+    private static void put(Map<CarFacet, Set<String>> filters, CarFacet facet, Set<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, values);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarSearchResult<T> {
+    private long total;
+    private int page;
+    private int size;
+    private List<T> items;
+}
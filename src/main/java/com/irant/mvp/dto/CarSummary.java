@@ -0,0 +1,23 @@
+package com.irant.mvp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Listing card of a car, read by constructor projection: only the columns a list view renders.
+ * The thumbnail is the first image URL by the (car_id, image_url) key of car_images.
+ */
+public record CarSummary(
+        Long id,
+        String brand,
+        String model,
+        Integer year,
+        BigDecimal pricePerDay,
+        String transmission,
+        String fuelType,
+        Integer seatingCapacity,
+        String city,
+        Boolean isAvailable,
+        String thumbnailUrl,
+        LocalDateTime createdAt) {
+}
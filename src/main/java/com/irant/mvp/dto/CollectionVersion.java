@@ -0,0 +1,10 @@
+package com.irant.mvp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fingerprint of a collection: latest modification time and member count.
+ * Any insert, update or removal changes one of the two.
+ */
+public record CollectionVersion(LocalDateTime lastModified, long count) {
+}
@@ -0,0 +1,10 @@
+package com.irant.mvp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identity, optimistic-lock version and last modification time of an entity, read without loading it
+ * to answer conditional requests
+ */
+public record EntityVersion(Long id, Long version, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,9 @@
+package com.irant.mvp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending hold as tracked by the expiry wheel
+ */
+public record HoldRef(Long reservationId, Long carId, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,25 @@
+package com.irant.mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationDto {
+    private Long id;
+    private Long carId;
+    private Long renterId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String status;
+    private BigDecimal totalPrice;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.irant.mvp.dto;
+
+/**
+ * Email and phone number of a user, read by constructor projection to warm the availability filters
+ */
+public record UserContactRow(String email, String phoneNumber) {
+}
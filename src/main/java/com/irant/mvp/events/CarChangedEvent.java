@@ -0,0 +1,10 @@
+package com.irant.mvp.events;
+
+import java.util.Collection;
+
+/**
+ * Published when cars are created or modified.
+ * Listeners (search index, caches) refresh the given ids after the surrounding transaction commits.
+ */
+public record CarChangedEvent(Collection<Long> carIds) {
+}
@@ -0,0 +1,8 @@
+package com.irant.mvp.events;
+
+/**
+ * Published when a user's security-relevant state changes (registration, roles, activation).
+ * Listeners react after the surrounding transaction commits.
+ */
+public record UserChangedEvent(Long userId, String email) {
+}
@@ -0,0 +1,22 @@
+package com.irant.mvp.exceptions;
+
+import com.irant.mvp.dto.EntityVersion;
+
+/**
+ * A version-checked car update lost the race: the car changed since the client read it
+ */
+public class CarVersionConflictException extends RuntimeException {
+    private final EntityVersion current;
+
+    public CarVersionConflictException(String message, EntityVersion current) {
+        super(message);
+        this.current = current;
+    }
+
+    /**
+     * Version the client should re-read or retry against
+     */
+    public EntityVersion getCurrent() {
+        return current;
+    }
+}
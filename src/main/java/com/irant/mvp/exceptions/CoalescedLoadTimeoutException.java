@@ -0,0 +1,10 @@
+package com.irant.mvp.exceptions;
+
+/**
+ * A caller waited too long on an identical load already in flight; the caller should retry later
+ */
+public class CoalescedLoadTimeoutException extends RuntimeException {
+    public CoalescedLoadTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.irant.mvp.exceptions;
+
+/**
+ * The password hashing executor is saturated; the caller should retry later
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
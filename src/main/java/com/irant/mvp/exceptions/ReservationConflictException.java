@@ -0,0 +1,10 @@
+package com.irant.mvp.exceptions;
+
+/**
+ * The requested date range overlaps an existing reservation of the same car
+ */
+public class ReservationConflictException extends RuntimeException {
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.irant.mvp.exceptions;
+
+/**
+ * A request issued more JDBC statements than its budget allows, or repeated a statement shape (N+1)
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
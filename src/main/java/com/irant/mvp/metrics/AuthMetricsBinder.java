@@ -0,0 +1,82 @@
+package com.irant.mvp.metrics;
+
+import com.irant.mvp.cache.CacheStats;
+import com.irant.mvp.security.AuthRateLimitFilter;
+import com.irant.mvp.security.BoundedPasswordEncoder;
+import com.irant.mvp.security.CustomUserDetailsService;
+import com.irant.mvp.security.JwtTokenProvider;
+import com.irant.mvp.security.KeyedRateLimiter;
+import com.irant.mvp.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the auth components already keep (token cache, principal caches,
+ * password hashing pool, rate limiters) as meters.
+ * Everything is read at scrape time from the existing LongAdders; nothing is recorded on the request path.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthMetricsBinder implements MeterBinder {
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService userDetailsService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final AuthRateLimitFilter rateLimitFilter;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        VerifiedTokenCache tokenCache = tokenProvider.getTokenCache();
+        counter(registry, "cache.hits", "jwt", tokenCache, VerifiedTokenCache::getHits);
+        counter(registry, "cache.misses", "jwt", tokenCache, VerifiedTokenCache::getMisses);
+        counter(registry, "cache.evictions", "jwt", tokenCache, VerifiedTokenCache::getEvictions);
+        Gauge.builder("cache.size", tokenCache, VerifiedTokenCache::size).tag("cache", "jwt").register(registry);
+
+        bindCacheStats(registry, "principalById", userDetailsService::getPrincipalByIdStats);
+        bindCacheStats(registry, "principalByEmail", userDetailsService::getPrincipalByEmailStats);
+
+        FunctionCounter.builder("auth.password.submitted", passwordEncoder, BoundedPasswordEncoder::getSubmitted)
+                .register(registry);
+        FunctionCounter.builder("auth.password.rejected", passwordEncoder, BoundedPasswordEncoder::getRejected)
+                .description("Hashing requests refused because the queue was full").register(registry);
+        FunctionCounter.builder("auth.password.timed.out", passwordEncoder, BoundedPasswordEncoder::getTimedOut)
+                .register(registry);
+        Gauge.builder("auth.password.queue", passwordEncoder, BoundedPasswordEncoder::getQueueDepth).register(registry);
+        Gauge.builder("auth.password.active", passwordEncoder, BoundedPasswordEncoder::getActiveCount).register(registry);
+        Gauge.builder("auth.password.cost", passwordEncoder, BoundedPasswordEncoder::getCost).register(registry);
+
+        bindRateLimiter(registry, "ip", rateLimitFilter.getIpLimiter());
+        bindRateLimiter(registry, "email", rateLimitFilter.getEmailLimiter());
+        bindRateLimiter(registry, "availability", rateLimitFilter.getAvailabilityLimiter());
+    }
+
+    private static void bindCacheStats(MeterRegistry registry, String cache, Supplier<CacheStats> stats) {
+        counter(registry, "cache.hits", cache, stats, s -> s.get().hits());
+        counter(registry, "cache.misses", cache, stats, s -> s.get().misses());
+        counter(registry, "cache.evictions", cache, stats, s -> s.get().evictions());
+        counter(registry, "cache.load.failures", cache, stats, s -> s.get().loadFailures());
+        Gauge.builder("cache.size", stats, s -> s.get().size()).tag("cache", cache).register(registry);
+    }
+
+    private static void bindRateLimiter(MeterRegistry registry, String limiter, KeyedRateLimiter rateLimiter) {
+        FunctionCounter.builder("auth.rate.limit.allowed", rateLimiter, KeyedRateLimiter::getAllowed)
+                .tag("limiter", limiter).register(registry);
+        FunctionCounter.builder("auth.rate.limit.rejected", rateLimiter, KeyedRateLimiter::getRejected)
+                .tag("limiter", limiter).register(registry);
+        FunctionCounter.builder("auth.rate.limit.evictions", rateLimiter, KeyedRateLimiter::getEvictions)
+                .tag("limiter", limiter).register(registry);
+        Gauge.builder("auth.rate.limit.keys", rateLimiter, KeyedRateLimiter::size)
+                .tag("limiter", limiter).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String cache, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, source, value).tag("cache", cache).register(registry);
+    }
+}
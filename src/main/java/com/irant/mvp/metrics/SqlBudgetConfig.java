@@ -0,0 +1,48 @@
+package com.irant.mvp.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL statement counting: wraps the DataSource and installs the budget filter ahead of
+ * the security filters, so principal loading is counted too.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql.budget.enabled", havingValue = "true")
+public class SqlBudgetConfig {
+
+    /**
+     * Wrap the pooled DataSource; static so it is registered before the DataSource is created
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(
+            @Value("${app.sql.budget.defaultStatements:20}") int defaultBudget,
+            @Value("${app.sql.budget.endpoints:}") String endpointBudgets,
+            @Value("${app.sql.budget.repeatThreshold:5}") int repeatThreshold,
+            @Value("${app.sql.budget.failOnViolation:false}") boolean failOnViolation) {
+        FilterRegistrationBean<SqlBudgetFilter> registration = new FilterRegistrationBean<>(
+                new SqlBudgetFilter(defaultBudget, endpointBudgets, repeatThreshold, failOnViolation));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
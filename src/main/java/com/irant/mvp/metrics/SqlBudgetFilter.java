@@ -0,0 +1,108 @@
+package com.irant.mvp.metrics;
+
+import com.irant.mvp.exceptions.SqlBudgetExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens a {@link SqlStatementScope} per HTTP request and checks it against the endpoint's statement budget
+ * and the N+1 threshold once the request completes.
+ * Endpoints are keyed as "METHOD /mapping/pattern", e.g. "GET /api/cars/{id}".
+ * In fail mode a violation throws {@link SqlBudgetExceededException}, which makes integration tests fail;
+ * otherwise it is logged.
+ */
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the request's closed scope, for tests and diagnostics
+     */
+    public static final String SCOPE_ATTRIBUTE = SqlBudgetFilter.class.getName() + ".scope";
+
+    private final int defaultBudget;
+    private final Map<String, Integer> endpointBudgets;
+    private final int repeatThreshold;
+    private final boolean failOnViolation;
+
+    /**
+     * @param defaultBudget   statements allowed for endpoints without their own budget
+     * @param endpointBudgets "METHOD /pattern=budget" entries separated by ';'
+     * @param repeatThreshold executions of one statement shape that count as N+1
+     * @param failOnViolation throw instead of logging
+     */
+    public SqlBudgetFilter(int defaultBudget, String endpointBudgets, int repeatThreshold, boolean failOnViolation) {
+        this.defaultBudget = defaultBudget;
+        this.endpointBudgets = parseBudgets(endpointBudgets);
+        this.repeatThreshold = repeatThreshold;
+        this.failOnViolation = failOnViolation;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementScope scope = SqlStatementScope.open(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        }
+        check(endpointOf(request), scope);
+    }
+
+    private void check(String endpoint, SqlStatementScope scope) {
+        if (scope.getStatementCount() == 0) {
+            return;
+        }
+        int budget = endpointBudgets.getOrDefault(endpoint, defaultBudget);
+        List<String> repeated = repeatThreshold > 1 ? scope.getRepeatedShapes(repeatThreshold) : List.of();
+        if (scope.getStatementCount() <= budget && repeated.isEmpty()) {
+            log.debug("{} ({}): {} statements, {} rows", scope.getName(), endpoint, scope.getStatementCount(),
+                    scope.getRowCount());
+            return;
+        }
+
+        StringBuilder message = new StringBuilder(endpoint).append(": ").append(scope.getStatementCount())
+                .append(" statements (budget ").append(budget).append("), ").append(scope.getRowCount()).append(" rows");
+        if (!repeated.isEmpty()) {
+            message.append(", repeated statements: ").append(repeated);
+        }
+        if (failOnViolation) {
+            throw new SqlBudgetExceededException(message.toString());
+        }
+        log.warn("SQL budget exceeded by {}", message);
+    }
+
+    private static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private static Map<String, Integer> parseBudgets(String budgets) {
+        Map<String, Integer> parsed = new HashMap<>();
+        if (budgets == null || budgets.isBlank()) {
+            return parsed;
+        }
+        for (String entry : budgets.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid SQL budget entry: " + entry);
+            }
+            parsed.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,145 @@
+package com.irant.mvp.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the JDBC statements and fetched rows of a unit of work on the current thread.
+ * Scopes nest: a statement is counted in the innermost open scope and in every enclosing one,
+ * so a test can open a scope around a MockMvc call that also gets its own per-request scope.
+ * Statements are grouped by shape (the SQL with literals and IN lists collapsed), which is
+ * what repeats when an N+1 fetch pattern fires.
+ * <pre>
+ * try (SqlStatementScope scope = SqlStatementScope.open("available cars")) {
+ *     mockMvc.perform(get("/api/cars/available"));
+ *     assertThat(scope.getStatementCount()).isLessThanOrEqualTo(2);
+ * }
+ * </pre>
+ */
+public final class SqlStatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<SqlStatementScope> CURRENT = new ThreadLocal<>();
+
+    private static final int SHAPE_CACHE_MAX_SIZE = 2048;
+    private static final Map<String, String> SHAPES = new ConcurrentHashMap<>();
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String name;
+    private final SqlStatementScope parent;
+    private final Map<String, Integer> statementsByShape = new HashMap<>();
+    private int statementCount;
+    private long rowCount;
+
+    private SqlStatementScope(String name, SqlStatementScope parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    /**
+     * Open a scope on the current thread; close it (try-with-resources) on the same thread
+     */
+    public static SqlStatementScope open(String name) {
+        SqlStatementScope scope = new SqlStatementScope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * True when a scope is open on the current thread, i.e. when statements are being counted
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void recordStatement(String sql) {
+        SqlStatementScope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        for (; scope != null; scope = scope.parent) {
+            scope.statementCount++;
+            scope.statementsByShape.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    static void recordRows(long rows) {
+        for (SqlStatementScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.rowCount += rows;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public Map<String, Integer> getStatementsByShape() {
+        return Collections.unmodifiableMap(statementsByShape);
+    }
+
+    /**
+     * Statement shapes executed at least {@code threshold} times in this scope
+     */
+    public List<String> getRepeatedShapes(int threshold) {
+        List<String> repeated = new ArrayList<>();
+        statementsByShape.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.add(count + "x " + shape);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + statementCount + " statements, " + rowCount + " rows";
+    }
+
+    /**
+     * SQL with literals replaced by ?, IN lists collapsed and whitespace normalized; memoized per SQL string
+     */
+    static String shapeOf(String sql) {
+        if (sql == null) {
+            return "<batch>";
+        }
+        String shape = SHAPES.get(sql);
+        if (shape == null) {
+            shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+            shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+            shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+            shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+            if (SHAPES.size() >= SHAPE_CACHE_MAX_SIZE) {
+                SHAPES.clear();
+            }
+            SHAPES.put(sql, shape);
+        }
+        return shape;
+    }
+}
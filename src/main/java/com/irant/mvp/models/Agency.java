@@ -44,6 +44,11 @@ public class Agency {
     @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Verrouillage optimiste
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -3,6 +3,8 @@ package com.irant.mvp.models;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -51,8 +53,10 @@ public class Car {
     private String city;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100) // Charge les images d'une page de voitures en une seule requête
     @CollectionTable(name = "car_images", joinColumns = @JoinColumn(name = "car_id"))
     @Column(name = "image_url")
+    @OptimisticLock(excluded = true) // Remplacées après l'UPDATE de updateCar, qui a déjà incrémenté la version
     private List<String> imageUrls;
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -61,6 +65,11 @@ public class Car {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Verrouillage optimiste : incrémentée à chaque modification, y compris par les UPDATE ensemblistes
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "agency_id", nullable = false)
     @JsonIgnoreProperties({"cars", "user"}) // Évite la sérialisation récursive
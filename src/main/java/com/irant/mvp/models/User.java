@@ -45,7 +45,13 @@ public class User {
     @Builder.Default
     private Boolean accountActive = true;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    // Incremented on role changes and deactivation to invalidate issued tokens
+    @Column(name = "security_version", nullable = false)
+    @Builder.Default
+    private Long securityVersion = 0L;
+
+    // Pas de cascade : les rôles sont des données de référence partagées (voir RoleRegistry)
+    @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     @Builder.Default
     private Set<Role> roles = new HashSet<>();
@@ -1,8 +1,11 @@
 package com.irant.mvp.repositories;
 
+import com.irant.mvp.dto.EntityVersion;
 import com.irant.mvp.models.Agency;
 import com.irant.mvp.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface AgencyRepository extends JpaRepository<Agency, Long> {
@@ -13,6 +16,17 @@ public interface AgencyRepository extends JpaRepository<Agency, Long> {
     // Trouver une agence par utilisateur (EPIC B2: Link agency to user account)
     Optional<Agency> findByUser(User user);
     
+    // Id de l'agence d'un utilisateur, sans charger les entités
+    @Query("select a.id from Agency a where a.user.email = :email")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+
+    @Query("select a.id from Agency a where a.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // Version de l'agence d'un utilisateur pour les GET conditionnels
+    @Query("select new com.irant.mvp.dto.EntityVersion(a.id, a.version, a.updatedAt) from Agency a where a.user.email = :email")
+    Optional<EntityVersion> findVersionByUserEmail(@Param("email") String email);
+
     // Vérifier si une agence existe pour un utilisateur
     boolean existsByUser(User user);
     
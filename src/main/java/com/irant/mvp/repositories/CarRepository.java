@@ -1,11 +1,28 @@
 package com.irant.mvp.repositories;
 
+import com.irant.mvp.dto.CarDetail;
+import com.irant.mvp.dto.CarExportRow;
+import com.irant.mvp.dto.CarIndexRow;
+import com.irant.mvp.dto.CarSummary;
+import com.irant.mvp.dto.CollectionVersion;
+import com.irant.mvp.dto.EntityVersion;
 import com.irant.mvp.models.Agency;
 import com.irant.mvp.models.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CarRepository extends JpaRepository<Car, Long> {
     
@@ -26,4 +43,136 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     
     // Trouver les voitures disponibles dans une ville
     List<Car> findByIsAvailableTrueAndCity(String city);
-}
\ No newline at end of file
+
+    // Colonnes d'une carte de listing; la vignette est lue par sous-requête sur la clé (car_id, image_url)
+    String SUMMARY_SELECT = "select new com.irant.mvp.dto.CarSummary(c.id, c.brand, c.model, c.year, c.pricePerDay, " +
+            "c.transmission, c.fuelType, c.seatingCapacity, c.city, c.isAvailable, " +
+            "(select min(img) from Car c2 join c2.imageUrls img where c2.id = c.id), c.createdAt) from Car c ";
+
+    // Pagination keyset des voitures disponibles, plus récentes d'abord (index idx_cars_available_created)
+    @Query(SUMMARY_SELECT + "where c.isAvailable = true and (:city is null or c.city = :city) " +
+            "order by c.createdAt desc, c.id desc")
+    List<CarSummary> findAvailableNewestFirst(@Param("city") String city, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where c.isAvailable = true and (:city is null or c.city = :city) " +
+            "and (c.createdAt < :createdAt or (c.createdAt = :createdAt and c.id < :id)) " +
+            "order by c.createdAt desc, c.id desc")
+    List<CarSummary> findAvailableNewestAfter(@Param("city") String city,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
+    // Pagination keyset des voitures disponibles, moins chères d'abord (index idx_cars_available_price)
+    @Query(SUMMARY_SELECT + "where c.isAvailable = true and (:city is null or c.city = :city) " +
+            "order by c.pricePerDay asc, c.id asc")
+    List<CarSummary> findAvailableCheapestFirst(@Param("city") String city, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where c.isAvailable = true and (:city is null or c.city = :city) " +
+            "and (c.pricePerDay > :price or (c.pricePerDay = :price and c.id > :id)) " +
+            "order by c.pricePerDay asc, c.id asc")
+    List<CarSummary> findAvailableCheapestAfter(@Param("city") String city,
+                                                @Param("price") BigDecimal price,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    // Cartes de listing d'une page de résultats de recherche
+    @Query(SUMMARY_SELECT + "where c.id in :ids")
+    List<CarSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Fiche complète d'une voiture avec le contact de son agence, sans charger d'entité
+    @Query("select new com.irant.mvp.dto.CarDetail(c.id, c.version, c.brand, c.model, c.year, c.pricePerDay, " +
+            "c.transmission, c.fuelType, c.seatingCapacity, c.color, c.licensePlate, c.rangeInMiles, " +
+            "c.description, c.isAvailable, c.city, a.id, a.name, a.city, a.phoneNumber, c.createdAt, c.updatedAt) " +
+            "from Car c join c.agency a where c.id = :id")
+    Optional<CarDetail> findDetailById(@Param("id") Long id);
+
+    // Version d'une fiche pour les GET conditionnels : la plus récente des dates de la voiture et de son agence
+    @Query("select new com.irant.mvp.dto.EntityVersion(c.id, c.version, " +
+            "case when a.updatedAt > c.updatedAt then a.updatedAt else c.updatedAt end) " +
+            "from Car c join c.agency a where c.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+
+    // Empreinte du catalogue disponible : date de la dernière modification (toutes voitures, désactivations
+    // comprises) et nombre de voitures disponibles
+    @Query("select new com.irant.mvp.dto.CollectionVersion((select max(c2.updatedAt) from Car c2), count(c)) " +
+            "from Car c where c.isAvailable = true and (:city is null or c.city = :city)")
+    CollectionVersion findAvailableVersion(@Param("city") String city);
+
+    @Query("select img from Car c join c.imageUrls img where c.id = :id order by img")
+    List<String> findImageUrlsById(@Param("id") Long id);
+
+    // Attributs indexés par la recherche en mémoire (CarSearchIndex), lus sans charger les entités
+    @Query("select new com.irant.mvp.dto.CarIndexRow(c.id, c.city, c.brand, c.transmission, c.fuelType, " +
+            "c.seatingCapacity, c.pricePerDay, c.isAvailable) from Car c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<CarIndexRow> streamIndexRows();
+
+    @Query("select new com.irant.mvp.dto.CarIndexRow(c.id, c.city, c.brand, c.transmission, c.fuelType, " +
+            "c.seatingCapacity, c.pricePerDay, c.isAvailable) from Car c where c.id in :ids")
+    List<CarIndexRow> findIndexRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Export de la flotte d'une agence : une ligne par (voiture, image), triée par voiture, lue en flux
+    @Query("select new com.irant.mvp.dto.CarExportRow(c.id, c.brand, c.model, c.year, c.pricePerDay, " +
+            "c.transmission, c.fuelType, c.seatingCapacity, c.color, c.licensePlate, c.rangeInMiles, " +
+            "c.description, c.isAvailable, c.city, c.createdAt, c.updatedAt, img) " +
+            "from Car c left join c.imageUrls img where c.agency.id = :agencyId order by c.id, img")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<CarExportRow> streamExportRows(@Param("agencyId") Long agencyId);
+
+    // Plaques déjà immatriculées parmi celles d'un lot d'import
+    @Query("select c.licensePlate from Car c where c.licensePlate in :plates")
+    List<String> findExistingLicensePlates(@Param("plates") Collection<String> plates);
+
+    // Prix journalier d'une voiture réservable
+    @Query("select c.pricePerDay from Car c where c.id = :id and c.isAvailable = true")
+    Optional<BigDecimal> findBookablePrice(@Param("id") Long id);
+
+    // Verrou de ligne SQL Server pour sérialiser les réservations d'une même voiture entre nœuds
+    @Query(value = "SELECT id FROM cars WITH (UPDLOCK, ROWLOCK) WHERE id = :id", nativeQuery = true)
+    Optional<Long> lockForBooking(@Param("id") Long id);
+
+    // Voitures d'une agence appartenant à l'utilisateur, en sous-requête pour vérifier la propriété dans l'UPDATE
+    String OWNED_BY_USER = "c.agency.id in (select a.id from Agency a where a.user.id = :userId)";
+
+    // Mise à jour partielle en une instruction : un paramètre null (ou 0 pour year/seatingCapacity) garde la valeur;
+    // 0 ligne modifiée si la voiture n'existe pas, n'appartient pas à l'agence de l'utilisateur ou si sa version
+    // n'est plus expectedVersion (compare-and-set, ignoré quand expectedVersion est null)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.brand = coalesce(:brand, c.brand), c.model = coalesce(:model, c.model), " +
+            "c.year = case when :year > 0 then :year else c.year end, " +
+            "c.pricePerDay = coalesce(:pricePerDay, c.pricePerDay), " +
+            "c.transmission = coalesce(:transmission, c.transmission), c.fuelType = coalesce(:fuelType, c.fuelType), " +
+            "c.seatingCapacity = case when :seatingCapacity > 0 then :seatingCapacity else c.seatingCapacity end, " +
+            "c.color = coalesce(:color, c.color), c.licensePlate = coalesce(:licensePlate, c.licensePlate), " +
+            "c.rangeInMiles = coalesce(:rangeInMiles, c.rangeInMiles), " +
+            "c.description = coalesce(:description, c.description), c.city = coalesce(:city, c.city), " +
+            "c.isAvailable = coalesce(:isAvailable, c.isAvailable), c.updatedAt = :now, c.version = c.version + 1 " +
+            "where c.id = :id and " + OWNED_BY_USER + " " +
+            "and (:expectedVersion is null or c.version = :expectedVersion)")
+    int updateOwnedCar(@Param("id") Long id,
+                       @Param("userId") Long userId,
+                       @Param("brand") String brand,
+                       @Param("model") String model,
+                       @Param("year") int year,
+                       @Param("pricePerDay") BigDecimal pricePerDay,
+                       @Param("transmission") String transmission,
+                       @Param("fuelType") String fuelType,
+                       @Param("seatingCapacity") int seatingCapacity,
+                       @Param("color") String color,
+                       @Param("licensePlate") String licensePlate,
+                       @Param("rangeInMiles") BigDecimal rangeInMiles,
+                       @Param("description") String description,
+                       @Param("city") String city,
+                       @Param("isAvailable") Boolean isAvailable,
+                       @Param("expectedVersion") Long expectedVersion,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.isAvailable = false, c.updatedAt = :now, c.version = c.version + 1 " +
+            "where c.id = :id and " + OWNED_BY_USER + " " +
+            "and (:expectedVersion is null or c.version = :expectedVersion)")
+    int deactivateOwnedCar(@Param("id") Long id, @Param("userId") Long userId,
+                           @Param("expectedVersion") Long expectedVersion, @Param("now") LocalDateTime now);
+
+    boolean existsByIdAndAgency_User_Id(Long id, Long userId);
+}
@@ -0,0 +1,78 @@
+package com.irant.mvp.repositories;
+
+import com.irant.mvp.dto.BookedInterval;
+import com.irant.mvp.dto.HoldRef;
+import com.irant.mvp.models.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    List<Reservation> findByRenter_IdOrderByStartDateDesc(Long renterId);
+
+    // Current and future ranges occupying a car, used to load its availability timeline
+    @Query("select new com.irant.mvp.dto.BookedInterval(r.id, r.startDate, r.endDate) from Reservation r " +
+            "where r.car.id = :carId and r.status in :statuses and r.endDate > :from " +
+            "and (r.expiresAt is null or r.expiresAt > :now)")
+    List<BookedInterval> findActiveIntervals(@Param("carId") Long carId,
+                                             @Param("statuses") Collection<Reservation.Status> statuses,
+                                             @Param("from") LocalDate from,
+                                             @Param("now") LocalDateTime now);
+
+    // Database-side overlap guard, checked under the car row lock
+    @Query("select count(r) > 0 from Reservation r where r.car.id = :carId and r.status in :statuses " +
+            "and r.startDate < :endDate and r.endDate > :startDate " +
+            "and (r.expiresAt is null or r.expiresAt > :now)")
+    boolean existsOverlapping(@Param("carId") Long carId,
+                              @Param("startDate") LocalDate startDate,
+                              @Param("endDate") LocalDate endDate,
+                              @Param("statuses") Collection<Reservation.Status> statuses,
+                              @Param("now") LocalDateTime now);
+
+    // Every pending hold, to re-arm the expiry wheel after a restart
+    @Query("select new com.irant.mvp.dto.HoldRef(r.id, r.car.id, r.expiresAt) from Reservation r " +
+            "where r.status = :held")
+    List<HoldRef> findPendingHolds(@Param("held") Reservation.Status held);
+
+    @Query("select new com.irant.mvp.dto.HoldRef(r.id, r.car.id, r.expiresAt) from Reservation r " +
+            "where r.id in :ids and r.status = :held")
+    List<HoldRef> findPendingHoldsByIdIn(@Param("ids") Collection<Long> ids, @Param("held") Reservation.Status held);
+
+    // Expire holds in one statement; the status guard makes it safe against a concurrent confirm
+    @Modifying
+    @Query("update Reservation r set r.status = :expired, r.updatedAt = :now " +
+            "where r.id in :ids and r.status = :held")
+    int expireHolds(@Param("ids") Collection<Long> ids,
+                    @Param("held") Reservation.Status held,
+                    @Param("expired") Reservation.Status expired,
+                    @Param("now") LocalDateTime now);
+
+    // Confirm a hold only while it is still held and unexpired
+    @Modifying
+    @Query("update Reservation r set r.status = :confirmed, r.expiresAt = null, r.updatedAt = :now " +
+            "where r.id = :id and r.status = :held and r.expiresAt > :now")
+    int confirmHold(@Param("id") Long id,
+                    @Param("held") Reservation.Status held,
+                    @Param("confirmed") Reservation.Status confirmed,
+                    @Param("now") LocalDateTime now);
+
+    // Cancel only a reservation still blocking its dates: not cancelled, expired, lapsed or already over
+    @Modifying
+    @Query("update Reservation r set r.status = :cancelled, r.expiresAt = null, r.updatedAt = :now " +
+            "where r.id = :id and r.status in :statuses and r.endDate > :today " +
+            "and (r.expiresAt is null or r.expiresAt > :now)")
+    int cancelActive(@Param("id") Long id,
+                     @Param("statuses") Collection<Reservation.Status> statuses,
+                     @Param("cancelled") Reservation.Status cancelled,
+                     @Param("today") LocalDate today,
+                     @Param("now") LocalDateTime now);
+}
@@ -1,10 +1,22 @@
 package com.irant.mvp.repositories;
 
+import com.irant.mvp.dto.UserContactRow;
 import com.irant.mvp.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -15,4 +27,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
 
     Boolean existsByPhoneNumber(String phoneNumber);
+
+    // Security version of an active user, empty if the user is missing or deactivated
+    @Query("select u.securityVersion from User u where u.id = :id and u.accountActive = true")
+    Optional<Long> findActiveSecurityVersionById(@Param("id") Long id);
+
+    // Tous les emails et téléphones, lus en flux pour initialiser les filtres de disponibilité
+    @Query("select new com.irant.mvp.dto.UserContactRow(u.email, u.phoneNumber) from User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UserContactRow> streamContactRows();
+
+    // Emails et téléphones déjà enregistrés parmi ceux d'un lot (inscription groupée)
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select u.phoneNumber from User u where u.phoneNumber in :phoneNumbers")
+    List<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
+    // Remplace un hash par un autre, seulement s'il n'a pas changé entre-temps
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword, u.updatedAt = :now " +
+            "where u.id = :id and u.password = :oldPassword")
+    int replacePasswordHash(@Param("id") Long id,
+                            @Param("oldPassword") String oldPassword,
+                            @Param("newPassword") String newPassword,
+                            @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,230 @@
+package com.irant.mvp.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of id-keyed deadlines.
+ * Scheduling and cancelling are O(1): each entry sits in a doubly linked slot list of the
+ * coarsest level that can still resolve its deadline, and is cascaded to finer levels as time
+ * approaches it. A single ticker thread advances the wheel and hands every batch of expired
+ * ids to the handler outside the lock.
+ */
+@Slf4j
+public class HierarchicalTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final long startMs;
+    private final Consumer<List<Long>> expiryHandler;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Node[][] wheels = new Node[LEVELS][SLOTS]; // slot list heads, guarded by lock
+    private final Map<Long, Node> nodesById = new HashMap<>(); // guarded by lock
+    private long currentTick; // guarded by lock
+
+    private ScheduledExecutorService ticker;
+
+    public HierarchicalTimingWheel(long tickMs, Consumer<List<Long>> expiryHandler) {
+        this(tickMs, System.currentTimeMillis(), expiryHandler);
+    }
+
+    // Origine fixe pour convertir exactement des ticks en échéances dans les tests
+    HierarchicalTimingWheel(long tickMs, long startMs, Consumer<List<Long>> expiryHandler) {
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.expiryHandler = expiryHandler;
+    }
+
+    public void start(String threadName) {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedule (or reschedule) the id to expire at the given wall-clock time
+     */
+    public void schedule(long id, long deadlineMs) {
+        long deadlineTick = Math.max(0, Math.ceilDiv(deadlineMs - startMs, tickMs));
+        List<Long> due = null;
+        lock.lock();
+        try {
+            Node existing = nodesById.remove(id);
+            if (existing != null) {
+                unlink(existing);
+            }
+            if (deadlineTick <= currentTick) {
+                due = List.of(id);
+            } else {
+                Node node = new Node(id, deadlineTick);
+                nodesById.put(id, node);
+                place(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (due != null) {
+            expiryHandler.accept(due);
+        }
+    }
+
+    /**
+     * Cancel a pending expiry; returns false if the id was not scheduled
+     */
+    public boolean cancel(long id) {
+        lock.lock();
+        try {
+            Node node = nodesById.remove(id);
+            if (node == null) {
+                return false;
+            }
+            unlink(node);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Advance the wheel to the current time and dispatch everything that expired
+     */
+    void tick() {
+        List<Long> expired = advanceTo(Math.floorDiv(System.currentTimeMillis() - startMs, tickMs));
+        if (!expired.isEmpty()) {
+            try {
+                expiryHandler.accept(expired);
+            } catch (RuntimeException e) {
+                log.error("Expiry handler failed for {} ids", expired.size(), e);
+            }
+        }
+    }
+
+    List<Long> advanceTo(long targetTick) {
+        List<Long> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            while (currentTick < targetTick) {
+                currentTick++;
+                // Cascade coarse slots whose range starts at this tick, coarsest first
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                        int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                        Node node = detachSlot(level, slot);
+                        while (node != null) {
+                            Node next = node.next;
+                            node.prev = node.next = null;
+                            place(node);
+                            node = next;
+                        }
+                    }
+                }
+
+                Node node = detachSlot(0, (int) (currentTick & SLOT_MASK));
+                while (node != null) {
+                    Node next = node.next;
+                    node.prev = node.next = null;
+                    if (node.deadlineTick <= currentTick) {
+                        nodesById.remove(node.id);
+                        expired.add(node.id);
+                    } else {
+                        // Deadline beyond the wheel's horizon, keep going round
+                        place(node);
+                    }
+                    node = next;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return expired;
+    }
+
+    /**
+     * Put the node in the finest level whose slot range still lies ahead of the current tick
+     */
+    private void place(Node node) {
+        long deadline = node.deadlineTick;
+        int level = 0;
+        while (level < LEVELS - 1
+                && (deadline >>> (SLOT_BITS * level)) - (currentTick >>> (SLOT_BITS * level)) >= SLOTS) {
+            level++;
+        }
+        long horizon = (currentTick >>> (SLOT_BITS * level)) + SLOTS - 1;
+        long position = Math.min(deadline >>> (SLOT_BITS * level), horizon);
+        int slot = (int) (position & SLOT_MASK);
+
+        Node head = wheels[level][slot];
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        wheels[level][slot] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (wheels[node.level][node.slot] == node) {
+            wheels[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = node.next = null;
+    }
+
+    private Node detachSlot(int level, int slot) {
+        Node head = wheels[level][slot];
+        wheels[level][slot] = null;
+        return head;
+    }
+
+    private static final class Node {
+        final long id;
+        final long deadlineTick;
+        int level;
+        int slot;
+        Node prev;
+        Node next;
+
+        Node(long id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
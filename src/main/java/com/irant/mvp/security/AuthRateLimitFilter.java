@@ -0,0 +1,267 @@
+package com.irant.mvp.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the credential endpoints (login, register) per client IP and per normalized email,
+ * ahead of any BCrypt work, and the availability check per client IP. Rejected calls get 429 with Retry-After.
+ * The IP check needs no body; the email check reads the small JSON body once and replays it downstream.
+ * Behind trusted proxies (the API gateway) the client IP is taken from X-Forwarded-For, so each client
+ * keeps its own bucket instead of sharing the gateway's.
+ */
+@Slf4j
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+    // Public and cheap, but an enumeration vector: limited per IP only, on its own budget
+    private static final String AVAILABILITY_PATH = "/api/auth/availability";
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final KeyedRateLimiter byIp;
+    private final KeyedRateLimiter byEmail;
+    private final KeyedRateLimiter availabilityByIp;
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public AuthRateLimitFilter(KeyedRateLimiter byIp, KeyedRateLimiter byEmail, KeyedRateLimiter availabilityByIp) {
+        this(byIp, byEmail, availabilityByIp, List.of());
+    }
+
+    /**
+     * @param trustedProxies addresses or CIDR ranges of the proxies allowed to report the client IP
+     */
+    public AuthRateLimitFilter(KeyedRateLimiter byIp, KeyedRateLimiter byEmail, KeyedRateLimiter availabilityByIp,
+                               Collection<String> trustedProxies) {
+        this.byIp = byIp;
+        this.byEmail = byEmail;
+        this.availabilityByIp = availabilityByIp;
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.GET.matches(request.getMethod())) {
+            return !AVAILABILITY_PATH.equals(path);
+        }
+        return !HttpMethod.POST.matches(request.getMethod()) || !LIMITED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientIp = clientAddress(request);
+        if (HttpMethod.GET.matches(request.getMethod())) {
+            long wait = availabilityByIp.tryAcquire(clientIp);
+            if (wait > 0) {
+                reject(response, wait, "ip", clientIp);
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long wait = byIp.tryAcquire(clientIp);
+        if (wait > 0) {
+            reject(response, wait, "ip", clientIp);
+            return;
+        }
+
+        int contentLength = request.getContentLength();
+        if (contentLength > MAX_BODY_BYTES) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+
+        String email = extractEmail(body);
+        if (email != null) {
+            wait = byEmail.tryAcquire(email);
+            if (wait > 0) {
+                reject(response, wait, "email", email);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    public KeyedRateLimiter getIpLimiter() {
+        return byIp;
+    }
+
+    public KeyedRateLimiter getEmailLimiter() {
+        return byEmail;
+    }
+
+    public KeyedRateLimiter getAvailabilityLimiter() {
+        return availabilityByIp;
+    }
+
+    /**
+     * Client IP: the peer address, unless the peer is a trusted proxy; then the right-most X-Forwarded-For
+     * entry not added by a trusted proxy (entries further left are set by the client and can be forged)
+     */
+    private String clientAddress(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (!isTrustedProxy(remote)) {
+            return remote;
+        }
+        List<String> hops = new ArrayList<>();
+        Enumeration<String> headers = request.getHeaders(X_FORWARDED_FOR);
+        while (headers != null && headers.hasMoreElements()) {
+            // Plusieurs en-têtes équivalent à une seule liste, dans l'ordre
+            for (String hop : headers.nextElement().split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!isTrustedProxy(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        // Chaîne entièrement interne : le premier émetteur est le client
+        return hops.isEmpty() ? remote : hops.getFirst();
+    }
+
+    private boolean isTrustedProxy(String address) {
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                // Pas une adresse IP (ex. "unknown") : jamais un proxy de confiance
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos, String keyType, String key) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.warn("Rate limit exceeded by {} {}, retry after {}s", keyType, key, retryAfterSeconds);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    /**
+     * Top-level "email" field of the JSON body, trimmed and lower-cased; null if absent or unparsable
+     */
+    private static String extractEmail(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(ObjectReadContext.empty(), body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                if ("email".equals(name) && token == JsonToken.VALUE_STRING) {
+                    return parser.getString().trim().toLowerCase(Locale.ROOT);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (JacksonException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replays the body already read by the filter to the rest of the chain
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // Corps déjà en mémoire : tout est lisible immédiatement
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        }
+    }
+}
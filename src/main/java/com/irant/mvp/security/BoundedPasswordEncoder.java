@@ -0,0 +1,268 @@
+package com.irant.mvp.security;
+
+import com.irant.mvp.exceptions.PasswordHashingBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BCrypt encoder whose hashing runs on a bounded, CPU-sized executor instead of request threads.
+ * When the queue is full, callers get a PasswordHashingBusyException instead of piling up.
+ * The work factor is either configured or calibrated at startup against a target hash latency,
+ * and hashes stored with any other work factor are reported for upgrade so they get rehashed on login.
+ */
+@Slf4j
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String CALIBRATION_SAMPLE = "calibration-sample-password";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.auth.bcrypt.cost:10}")
+    private int configuredCost;
+
+    @Value("${app.auth.bcrypt.calibrate:false}")
+    private boolean calibrate;
+
+    @Value("${app.auth.bcrypt.targetMs:250}")
+    private long targetMs;
+
+    @Value("${app.auth.bcrypt.minCost:10}")
+    private int minCost;
+
+    @Value("${app.auth.bcrypt.maxCost:16}")
+    private int maxCost;
+
+    @Value("${app.auth.hashing.threads:0}") // 0 = one thread per available processor
+    private int threads;
+
+    @Value("${app.auth.hashing.queueCapacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.auth.hashing.timeoutMs:5000}")
+    private long timeoutMs;
+
+    private int cost;
+    private BCryptPasswordEncoder delegate;
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    // BCrypt time on the hashing threads, excluding the wait in the queue
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+
+    public BoundedPasswordEncoder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        encodeTimer = hashTimer("encode");
+        matchesTimer = hashTimer("matches");
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        cost = calibrate ? calibrateCost() : configuredCost;
+        delegate = new BCryptPasswordEncoder(cost);
+        log.info("Password hashing: BCrypt cost {} on {} threads, queue capacity {}", cost, poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> timedEncode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            try {
+                return delegate.matches(rawPassword, encodedPassword);
+            } finally {
+                matchesTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * Hash many passwords in parallel on the hashing pool.
+     * At most one task per pool thread is in flight at a time, so interactive logins queued
+     * behind a bulk job wait for one hash at most instead of the whole batch.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int window = executor.getMaximumPoolSize();
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        for (int from = 0; from < rawPasswords.size(); from += window) {
+            List<Future<String>> futures = new ArrayList<>(window);
+            for (CharSequence raw : rawPasswords.subList(from, Math.min(from + window, rawPasswords.size()))) {
+                futures.add(enqueue(() -> timedEncode(raw)));
+            }
+            for (Future<String> future : futures) {
+                encoded.add(await(future));
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * True when the stored hash was produced with a different work factor than the current one
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        Integer storedCost = costOf(encodedPassword);
+        return storedCost != null && storedCost != cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private String timedEncode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("auth.password.hash")
+                .description("BCrypt time on the hashing pool")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        return await(enqueue(task));
+    }
+
+    private <T> Future<T> enqueue(Callable<T> task) {
+        try {
+            Future<T> future = executor.submit(task);
+            submitted.increment();
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing queue is full");
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new PasswordHashingBusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Highest work factor whose median hash time on this machine stays within the target latency
+     */
+    private int calibrateCost() {
+        int chosen = minCost;
+        for (int candidate = minCost; candidate <= maxCost; candidate++) {
+            long elapsedMs = medianHashMs(candidate);
+            log.info("BCrypt calibration: cost {} takes {} ms", candidate, elapsedMs);
+            if (elapsedMs > targetMs) {
+                break;
+            }
+            chosen = candidate;
+            // Each step doubles the work: stop before a run that would certainly overshoot
+            if (elapsedMs * 2 > targetMs) {
+                break;
+            }
+        }
+        log.info("BCrypt calibration picked cost {} for a {} ms target", chosen, targetMs);
+        return chosen;
+    }
+
+    private static long medianHashMs(int candidateCost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(candidateCost);
+        encoder.encode(CALIBRATION_SAMPLE); // warm-up
+        long[] samples = new long[3];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_SAMPLE);
+            samples[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        Arrays.sort(samples);
+        return samples[1];
+    }
+
+    // Format: $2a$10$<salt><hash>
+    private static Integer costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return null;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
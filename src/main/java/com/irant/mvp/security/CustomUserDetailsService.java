@@ -1,29 +1,133 @@
 package com.irant.mvp.security;
 
+import com.irant.mvp.cache.CacheStats;
+import com.irant.mvp.cache.LoadingCache;
+import com.irant.mvp.events.UserChangedEvent;
 import com.irant.mvp.models.User;
 import com.irant.mvp.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.auth.principalCacheMaxSize:50000}")
+    private int principalCacheMaxSize;
+
+    @Value("${app.auth.principalCacheTtlMs:600000}") // 10 minutes in milliseconds
+    private long principalCacheTtlMs;
+
+    // Immutable UserPrincipal snapshots; entries are invalidated when the user changes
+    private LoadingCache<Long, UserPrincipal> principalsById;
+    private LoadingCache<String, UserPrincipal> principalsByEmail;
+
+    // Enregistrés une fois : aucune recherche de meter sur le chemin de la requête
+    private Timer loadByIdTimer;
+    private Timer loadByEmailTimer;
+
+    @PostConstruct
+    void init() {
+        principalsById = new LoadingCache<>(principalCacheMaxSize, principalCacheTtlMs, TimeUnit.MILLISECONDS);
+        principalsByEmail = new LoadingCache<>(principalCacheMaxSize, principalCacheTtlMs, TimeUnit.MILLISECONDS);
+        loadByIdTimer = principalLoadTimer("id");
+        loadByEmailTimer = principalLoadTimer("email");
+    }
 
     /**
      * Load user by email for authentication login
      * This is called during authentication process
      */
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return principalsByEmail.get(email, this::fetchByEmail);
+        } finally {
+            loadByEmailTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Load user by ID (used for JWT token verification)
+     * Called after JWT token is validated
+     */
+    public UserDetails loadUserById(Long userId) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return principalsById.get(userId, this::fetchById);
+        } finally {
+            loadByIdTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Store a rehashed password after a successful login whose hash used an outdated work factor
+     * Called by the authentication provider when the password encoder asks for an upgrade
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserPrincipal principal = (UserPrincipal) user;
+        int updated = userRepository.replacePasswordHash(principal.getId(), principal.getPassword(), newPassword,
+                LocalDateTime.now());
+        principalsById.invalidate(principal.getId());
+        principalsByEmail.invalidate(principal.getEmail());
+        if (updated == 0) {
+            // Le mot de passe a changé entre-temps : garder le hash existant
+            log.debug("Password rehash skipped for user: {}", principal.getId());
+            return user;
+        }
+        log.info("Password rehashed for user: {}", principal.getId());
+        return new UserPrincipal(principal.getId(), principal.getEmail(), principal.getFullName(), newPassword,
+                principal.getAuthorities(), principal.getSecurityVersion());
+    }
+
+    /**
+     * Drop cached principals once a change to the user is committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        principalsById.invalidate(event.userId());
+        if (event.email() != null) {
+            principalsByEmail.invalidate(event.email());
+        }
+        log.debug("Cached principal evicted for user: {}", event.userId());
+    }
+
+    public CacheStats getPrincipalByIdStats() {
+        return principalsById.stats();
+    }
+
+    public CacheStats getPrincipalByEmailStats() {
+        return principalsByEmail.stats();
+    }
+
+    private Timer principalLoadTimer(String key) {
+        return Timer.builder("auth.principal.load")
+                .description("Principal loading, cache hits included")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    private UserPrincipal fetchByEmail(String email) {
         log.debug("Loading user details by email: {}", email);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> {
@@ -33,12 +137,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return UserPrincipal.create(user);
     }
 
-    /**
-     * Load user by ID (used for JWT token verification)
-     * Called after JWT token is validated
-     */
-    @Transactional(readOnly = true)
-    public UserDetails loadUserById(Long userId) throws UsernameNotFoundException {
+    private UserPrincipal fetchById(Long userId) {
         log.debug("Loading user details by id: {}", userId);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> {
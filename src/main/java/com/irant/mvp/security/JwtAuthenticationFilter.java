@@ -14,6 +14,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -21,6 +22,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final UserSecurityVersionService securityVersionService;
+    private final boolean statelessAuth;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -29,20 +32,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                if (tokenProvider.validateToken(jwt)) {
-                    Long userId = tokenProvider.getUserIdFromToken(jwt);
+                // Single verification pass: signature, expiry and subject in one parse
+                Optional<VerifiedToken> verified = tokenProvider.verifyToken(jwt);
+                if (verified.isPresent()) {
+                    Long userId = verified.get().getUserId();
 
-                    // Load user details by ID
-                    UserDetails userDetails = userDetailsService.loadUserById(userId);
+                    UserDetails userDetails = resolveUserDetails(verified.get());
+                    if (userDetails != null) {
+                        // Create authentication token
+                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                                userDetails, null, userDetails.getAuthorities());
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    // Create authentication token
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    // Set authentication in security context
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    log.debug("Set Spring Security context with user: {}", userId);
+                        // Set authentication in security context
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        log.debug("Set Spring Security context with user: {}", userId);
+                    } else {
+                        log.warn("Stale JWT token for user {} on request: {}", userId, request.getRequestURI());
+                    }
                 } else {
                     log.warn("Invalid JWT token for request: {}", request.getRequestURI());
                 }
@@ -56,6 +63,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Build the principal from token claims in stateless mode, otherwise load it by ID.
+     * Returns null when a stateless token no longer matches the user's security version.
+     */
+    private UserDetails resolveUserDetails(VerifiedToken token) {
+        if (statelessAuth && token.hasPrincipalClaims()) {
+            if (!securityVersionService.isCurrent(token.getUserId(), token.getSecurityVersion())) {
+                return null;
+            }
+            return UserPrincipal.fromToken(token);
+        }
+        return userDetailsService.loadUserById(token.getUserId());
+    }
+
     /**
      * Extract JWT token from Authorization header
      * Expected format: "Bearer <token>"
@@ -1,23 +1,39 @@
 package com.irant.mvp.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    // Claims carried by access tokens so the filter can rebuild the principal without a DB lookup
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_SECURITY_VERSION = "sv";
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${app.jwtSecret:your-super-secret-key-change-this-in-production-to-at-least-256-bits}")
     private String jwtSecret;
 
@@ -27,12 +43,57 @@ public class JwtTokenProvider {
     @Value("${app.jwtRefreshExpirationMs:604800000}") // 7 days in milliseconds
     private long jwtRefreshExpirationMs;
 
+    @Value("${app.jwtCacheMaxSize:10000}")
+    private int jwtCacheMaxSize;
+
+    @Value("${app.jwtCacheTtlMs:300000}") // 5 minutes in milliseconds
+    private long jwtCacheTtlMs;
+
+    // Key material and parser are built once; both are immutable and thread-safe
+    private SecretKey key;
+    private JwtParser parser;
+    private VerifiedTokenCache tokenCache;
+    // Signature checks only: cache hits are counted by the token cache
+    private Timer verifyTimer;
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        tokenCache = new VerifiedTokenCache(jwtCacheMaxSize, jwtCacheTtlMs);
+        verifyTimer = Timer.builder("auth.jwt.verify")
+                .description("JWT signature verification on token cache misses")
+                .register(meterRegistry);
+    }
+
     /**
      * Generate JWT token from authentication
      */
     public String generateToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return generateTokenFromUserId(userPrincipal.getId());
+        return generateTokenFromPrincipal(userPrincipal);
+    }
+
+    /**
+     * Generate JWT token carrying email, role names and security version
+     */
+    public String generateTokenFromPrincipal(UserPrincipal principal) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+
+        List<String> roles = principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        return Jwts.builder()
+                .subject(principal.getId().toString())
+                .claim(CLAIM_EMAIL, principal.getEmail())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_SECURITY_VERSION, principal.getSecurityVersion())
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(key)
+                .compact();
     }
 
     /**
@@ -42,8 +103,6 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
         return Jwts.builder()
                 .subject(userId.toString())
                 .issuedAt(now)
@@ -59,8 +118,6 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtRefreshExpirationMs);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
         return Jwts.builder()
                 .subject(userId.toString())
                 .issuedAt(now)
@@ -70,60 +127,57 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Get user ID from JWT token
+     * Verify a token once and return its subject, expiry and claims.
+     * Tokens verified recently are served from the cache without repeating the HMAC check.
      */
-    public Long getUserIdFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
+    public Optional<VerifiedToken> verifyToken(String token) {
+        VerifiedToken cached = tokenCache.get(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
 
-    /**
-     * Get expiration date from token
-     */
-    public Date getExpirationDateFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
-        return claims.getExpiration();
+        long start = System.nanoTime();
+        try {
+            // parseSignedClaims checks the signature and rejects expired tokens
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            VerifiedToken verified = new VerifiedToken(
+                    Long.parseLong(claims.getSubject()),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+                    claims);
+            tokenCache.put(token, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("JWT validation error: {}", e.getMessage());
+            return Optional.empty();
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
-     * Get all claims from token
+     * Get user ID from JWT token
      */
-    private Claims getAllClaimsFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Long getUserIdFromToken(String token) {
+        return verifyToken(token)
+                .map(VerifiedToken::getUserId)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid JWT token"));
     }
 
     /**
-     * Check if token is expired
+     * Get expiration date from token
      */
-    private Boolean isTokenExpired(String token) {
-        try {
-            Date expiration = getExpirationDateFromToken(token);
-            return expiration.before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
+    public Date getExpirationDateFromToken(String token) {
+        return verifyToken(token)
+                .map(verified -> new Date(verified.getExpiresAtMs()))
+                .orElseThrow(() -> new IllegalArgumentException("Invalid JWT token"));
     }
 
     /**
      * Validate JWT token
      */
     public Boolean validateToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            log.error("JWT validation error: {}", e.getMessage());
-            return false;
-        }
+        return verifyToken(token).isPresent();
     }
 
     /**
@@ -132,4 +186,11 @@ public class JwtTokenProvider {
     public long getJwtExpirationMs() {
         return jwtExpirationMs;
     }
+
+    /**
+     * Verified token cache, exposed for statistics
+     */
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
 }
@@ -0,0 +1,127 @@
+package com.irant.mvp.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per key, implemented as GCRA: each bucket is a single AtomicLong holding the
+ * theoretical arrival time of the next request, updated with one CAS and no lock.
+ * A bucket whose arrival time has passed is full again and can be dropped, which keeps memory bounded.
+ */
+public class KeyedRateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweepNanos;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param permitsPerMinute sustained rate
+     * @param burst            requests allowed back to back from a full bucket
+     * @param maxKeys          bucket count that triggers eviction
+     */
+    public KeyedRateLimiter(int permitsPerMinute, int burst, int maxKeys) {
+        this(permitsPerMinute, burst, maxKeys, System::nanoTime);
+    }
+
+    // Horloge injectable pour tester le remplissage sans attendre
+    KeyedRateLimiter(int permitsPerMinute, int burst, int maxKeys, LongSupplier nanoClock) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, permitsPerMinute);
+        this.toleranceNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.nextSweepNanos = new AtomicLong(nanoClock.getAsLong() + SWEEP_INTERVAL_NANOS);
+    }
+
+    /**
+     * Take one permit for the key; returns 0 when allowed, otherwise the nanoseconds to wait before retrying
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys || now - nextSweepNanos.get() > 0) {
+                sweep(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat - now, 0) + now + emissionIntervalNanos;
+            long wait = newTat - now - toleranceNanos;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Drop idle (full) buckets; if still over capacity, drop an arbitrary tenth.
+     * Only one thread sweeps at a time, the others carry on.
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            nextSweepNanos.set(now + SWEEP_INTERVAL_NANOS);
+            buckets.entrySet().removeIf(e -> {
+                boolean idle = e.getValue().get() - now <= 0;
+                if (idle) {
+                    evictions.increment();
+                }
+                return idle;
+            });
+
+            if (buckets.size() >= maxKeys) {
+                int excess = buckets.size() - maxKeys + Math.max(1, maxKeys / 10);
+                Iterator<String> it = buckets.keySet().iterator();
+                while (excess-- > 0 && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
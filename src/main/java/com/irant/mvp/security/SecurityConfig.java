@@ -1,6 +1,7 @@
 package com.irant.mvp.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,8 +11,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -28,14 +27,37 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtTokenProvider tokenProvider;
+    private final UserSecurityVersionService securityVersionService;
 
-    /**
-     * Configure password encoder using BCrypt
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    @Value("${app.auth.stateless:true}")
+    private boolean statelessAuth;
+
+    @Value("${app.auth.rateLimit.ipPerMinute:60}")
+    private int ipPerMinute;
+
+    @Value("${app.auth.rateLimit.ipBurst:20}")
+    private int ipBurst;
+
+    @Value("${app.auth.rateLimit.emailPerMinute:10}")
+    private int emailPerMinute;
+
+    @Value("${app.auth.rateLimit.emailBurst:5}")
+    private int emailBurst;
+
+    @Value("${app.auth.rateLimit.availabilityPerMinute:120}")
+    private int availabilityPerMinute;
+
+    @Value("${app.auth.rateLimit.availabilityBurst:30}")
+    private int availabilityBurst;
+
+    @Value("${app.auth.rateLimit.maxKeys:100000}")
+    private int rateLimitMaxKeys;
+
+    @Value("${app.auth.rateLimit.trustedProxies:10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,127.0.0.1,::1}")
+    private String[] trustedProxies;
+
+    @Value("${management.server.port:8081}")
+    private int managementPort;
 
     /**
      * Configure authentication manager
@@ -59,19 +81,30 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers(HttpMethod.POST, "/api/auth/register").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/auth/availability").permitAll()
                         .requestMatchers("/api/public/**").permitAll()
+                        // Actuator : port de gestion uniquement ; health et prometheus sans JWT pour les sondes
+                        .requestMatchers(request -> request.getLocalPort() == managementPort
+                                && (request.getRequestURI().startsWith("/actuator/health")
+                                        || request.getRequestURI().equals("/actuator/prometheus"))).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("SUPER_ADMIN")
                         // Protected endpoints
                         .requestMatchers(HttpMethod.GET, "/api/auth/me").authenticated()
+                        // Échappe aux limites par IP et par email de /register : réservé au super admin
+                        .requestMatchers(HttpMethod.POST, "/api/auth/register/bulk").hasRole("SUPER_ADMIN")
                         .requestMatchers("/api/auth/**").authenticated()
                         // Agency endpoints - authenticated users only
                         .requestMatchers("/api/agencies/**").authenticated()
                         // Car endpoints - authenticated users only
                         .requestMatchers("/api/cars/**").authenticated()
+                        // Reservation endpoints - authenticated users only
+                        .requestMatchers("/api/reservations/**").authenticated()
                         // Super admin only
                         .requestMatchers("/api/admin/**").hasRole("SUPER_ADMIN")
                         // All other requests require authentication
                         .anyRequest().authenticated())
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(authRateLimitFilter(), JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -81,7 +114,20 @@ public class SecurityConfig {
      */
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(tokenProvider, userDetailsService);
+        return new JwtAuthenticationFilter(tokenProvider, userDetailsService, securityVersionService, statelessAuth);
+    }
+
+    /**
+     * Per-IP and per-email rate limit on login and register, per-IP rate limit on the availability check;
+     * the client IP is read from X-Forwarded-For when the request comes from a trusted proxy
+     */
+    @Bean
+    public AuthRateLimitFilter authRateLimitFilter() {
+        return new AuthRateLimitFilter(
+                new KeyedRateLimiter(ipPerMinute, ipBurst, rateLimitMaxKeys),
+                new KeyedRateLimiter(emailPerMinute, emailBurst, rateLimitMaxKeys),
+                new KeyedRateLimiter(availabilityPerMinute, availabilityBurst, rateLimitMaxKeys),
+                Arrays.asList(trustedProxies));
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.irant.mvp.security;
 
+import com.irant.mvp.models.Role;
 import com.irant.mvp.models.User;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -8,29 +9,95 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserPrincipal implements UserDetails {
+
+    // Une autorité partagée par rôle, et un ensemble immuable par combinaison de rôles (indexé par masque)
+    private static final Role.RoleName[] ROLE_NAMES = Role.RoleName.values();
+    private static final GrantedAuthority[] ROLE_AUTHORITIES = new GrantedAuthority[ROLE_NAMES.length];
+    private static final List<Set<GrantedAuthority>> AUTHORITY_SETS = new ArrayList<>(1 << ROLE_NAMES.length);
+    private static final Map<String, Role.RoleName> ROLES_BY_AUTHORITY = new HashMap<>();
+
+    static {
+        for (Role.RoleName name : ROLE_NAMES) {
+            ROLE_AUTHORITIES[name.ordinal()] = new SimpleGrantedAuthority(name.toString());
+            ROLES_BY_AUTHORITY.put(name.toString(), name);
+        }
+        for (int mask = 0; mask < 1 << ROLE_NAMES.length; mask++) {
+            Set<GrantedAuthority> set = new HashSet<>();
+            for (Role.RoleName name : ROLE_NAMES) {
+                if ((mask & 1 << name.ordinal()) != 0) {
+                    set.add(ROLE_AUTHORITIES[name.ordinal()]);
+                }
+            }
+            AUTHORITY_SETS.add(Set.copyOf(set));
+        }
+    }
+
     private Long id;
     private String email;
+    private String fullName;
     private String password;
     private Collection<? extends GrantedAuthority> authorities;
+    private Long securityVersion;
 
     public static UserPrincipal create(User user) {
-        Collection<? extends GrantedAuthority> authorities = user.getRoles()
-                .stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().toString()))
-                .collect(Collectors.toSet());
+        int mask = 0;
+        for (Role role : user.getRoles()) {
+            mask |= 1 << role.getName().ordinal();
+        }
+        Collection<? extends GrantedAuthority> authorities = AUTHORITY_SETS.get(mask);
 
         return new UserPrincipal(
                 user.getId(),
                 user.getEmail(),
+                user.getFullName(),
                 user.getPassword(),
-                authorities);
+                authorities,
+                user.getSecurityVersion());
+    }
+
+    /**
+     * Build a principal from the claims of a verified access token, without touching the database
+     */
+    public static UserPrincipal fromToken(VerifiedToken token) {
+        Collection<? extends GrantedAuthority> authorities = authoritiesOf(token.getRoles());
+
+        return new UserPrincipal(
+                token.getUserId(),
+                token.getEmail(),
+                null,
+                null,
+                authorities,
+                token.getSecurityVersion());
+    }
+
+    /**
+     * Shared authority set for these role names; unknown names fall back to fresh instances
+     */
+    private static Collection<? extends GrantedAuthority> authoritiesOf(Collection<String> roleNames) {
+        int mask = 0;
+        for (String roleName : roleNames) {
+            Role.RoleName name = ROLES_BY_AUTHORITY.get(roleName);
+            if (name == null) {
+                return roleNames.stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toUnmodifiableSet());
+            }
+            mask |= 1 << name.ordinal();
+        }
+        return AUTHORITY_SETS.get(mask);
     }
 
     @Override
@@ -0,0 +1,87 @@
+package com.irant.mvp.security;
+
+import com.irant.mvp.events.UserChangedEvent;
+import com.irant.mvp.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lightweight check that a stateless token still matches the user's current security version.
+ * Versions are cached in-process for a short TTL and evicted as soon as a change commits,
+ * so the common case costs a map lookup instead of a users/roles join.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserSecurityVersionService {
+
+    // Marker for users that are missing or deactivated
+    private static final long INACTIVE = -1L;
+
+    private final UserRepository userRepository;
+
+    @Value("${app.auth.securityVersionTtlMs:30000}")
+    private long ttlMs;
+
+    @Value("${app.auth.securityVersionMaxEntries:100000}")
+    private int maxEntries;
+
+    private final Map<Long, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Check that the token's security version is still current and the account is active
+     */
+    public boolean isCurrent(Long userId, Long tokenVersion) {
+        if (tokenVersion == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        CachedVersion cached = versions.get(userId);
+        if (cached == null || cached.loadedAtMs + ttlMs <= now) {
+            long version = userRepository.findActiveSecurityVersionById(userId).orElse(INACTIVE);
+            if (versions.size() >= maxEntries) {
+                evict(now);
+            }
+            cached = new CachedVersion(version, now);
+            versions.put(userId, cached);
+        }
+        return cached.version != INACTIVE && cached.version == tokenVersion;
+    }
+
+    /**
+     * Forget the cached version once a change to the user is committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        versions.remove(event.userId());
+        log.debug("Security version evicted for user: {}", event.userId());
+    }
+
+    /**
+     * Drop expired entries first; if the cache is still full, drop an arbitrary tenth of it,
+     * so a full cache never sends every authenticated request to the database at once
+     */
+    private void evict(long now) {
+        versions.values().removeIf(v -> v.loadedAtMs + ttlMs <= now);
+        if (versions.size() < maxEntries) {
+            return;
+        }
+        int excess = versions.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<Long> it = versions.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private record CachedVersion(long version, long loadedAtMs) {
+    }
+}
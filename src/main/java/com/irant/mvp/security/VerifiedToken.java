@@ -0,0 +1,46 @@
+package com.irant.mvp.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Result of a single successful JWT verification.
+ * Immutable so it can be shared between requests through {@link VerifiedTokenCache}.
+ */
+@Value
+public class VerifiedToken {
+    Long userId;
+    long expiresAtMs;
+    Claims claims;
+
+    public boolean isExpired(long nowMs) {
+        return expiresAtMs <= nowMs;
+    }
+
+    public String getEmail() {
+        return claims.get(JwtTokenProvider.CLAIM_EMAIL, String.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Collection<String> getRoles() {
+        Object roles = claims.get(JwtTokenProvider.CLAIM_ROLES);
+        return roles instanceof Collection<?> values ? (Collection<String>) values : List.of();
+    }
+
+    public Long getSecurityVersion() {
+        Object version = claims.get(JwtTokenProvider.CLAIM_SECURITY_VERSION);
+        return version instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * True when the token carries everything needed to build a principal without a DB lookup
+     */
+    public boolean hasPrincipalClaims() {
+        return getEmail() != null
+                && claims.get(JwtTokenProvider.CLAIM_ROLES) != null
+                && getSecurityVersion() != null;
+    }
+}
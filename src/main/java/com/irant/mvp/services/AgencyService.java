@@ -1,15 +1,25 @@
 package com.irant.mvp.services;
 
+import com.irant.mvp.cache.SingleFlight;
 import com.irant.mvp.dto.AgencyDto;
 import com.irant.mvp.dto.AgencyRequest;
+import com.irant.mvp.dto.EntityVersion;
 import com.irant.mvp.models.Agency;
 import com.irant.mvp.models.User;
 import com.irant.mvp.repositories.AgencyRepository;
 import com.irant.mvp.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -19,6 +29,23 @@ public class AgencyService {
 
     private final AgencyRepository agencyRepository;
     private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.cache.singleFlightTimeoutMs:2000}")
+    private long singleFlightTimeoutMs;
+
+    // Lectures concurrentes identiques fusionnées en un seul aller-retour base, hors transaction appelante
+    private TransactionTemplate readOnlyTransaction;
+    private SingleFlight<String, AgencyDto> agencyLoads;
+    private SingleFlight<String, Optional<EntityVersion>> agencyVersionLoads;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        agencyLoads = new SingleFlight<>(singleFlightTimeoutMs, TimeUnit.MILLISECONDS);
+        agencyVersionLoads = new SingleFlight<>(singleFlightTimeoutMs, TimeUnit.MILLISECONDS);
+    }
 
     /**
      * Create agency for authenticated user
@@ -58,15 +85,29 @@ public class AgencyService {
 
     /**
      * Get agency by user email
+     * Concurrent calls for the same user share one load; waiters get its result or its exception
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AgencyDto getAgencyByUserEmail(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalArgumentException("User not found with email: " + userEmail));
+        return agencyLoads.load(userEmail, () -> readOnlyTransaction.execute(status -> {
+            User user = userRepository.findByEmail(userEmail)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found with email: " + userEmail));
+
+            Agency agency = agencyRepository.findByUser(user)
+                    .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
 
-        Agency agency = agencyRepository.findByUser(user)
-                .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
+            return mapToDto(agency);
+        }));
+    }
 
-        return mapToDto(agency);
+    /**
+     * Version of a user's agency, read without loading it
+     * Concurrent calls for the same user share one query
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<EntityVersion> getAgencyVersionByUserEmail(String userEmail) {
+        return agencyVersionLoads.load(userEmail,
+                () -> readOnlyTransaction.execute(status -> agencyRepository.findVersionByUserEmail(userEmail)));
     }
 
     /**
@@ -80,6 +121,7 @@ public class AgencyService {
                 .phoneNumber(agency.getPhoneNumber())
                 .city(agency.getCity())
                 .userId(agency.getUser().getId())
+                .version(agency.getVersion())
                 .createdAt(agency.getCreatedAt())
                 .updatedAt(agency.getUpdatedAt())
                 .build();
@@ -1,30 +1,36 @@
 package com.irant.mvp.services;
 
+import com.irant.mvp.dto.AvailabilityResponse;
 import com.irant.mvp.dto.LoginRequest;
 import com.irant.mvp.dto.LoginResponse;
 import com.irant.mvp.dto.RegisterRequest;
 import com.irant.mvp.dto.UserDto;
 import com.irant.mvp.constants.UserType;
+import com.irant.mvp.events.UserChangedEvent;
 import com.irant.mvp.models.Renter;
 import com.irant.mvp.models.Role;
 import com.irant.mvp.models.User;
 import com.irant.mvp.models.VehicleOwner;
 import com.irant.mvp.repositories.RenterRepository;
-import com.irant.mvp.repositories.RoleRepository;
 import com.irant.mvp.repositories.UserRepository;
 import com.irant.mvp.repositories.VehicleOwnerRepository;
 import com.irant.mvp.security.JwtTokenProvider;
+import com.irant.mvp.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
-import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -34,12 +40,14 @@ import java.util.stream.Collectors;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final RenterRepository renterRepository;
     private final VehicleOwnerRepository vehicleOwnerRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserAvailabilityIndex availabilityIndex;
 
     @Transactional // Ensures atomicity: if profile save fails, user isn't created
     public UserDto registerUser(RegisterRequest request) {
@@ -48,11 +56,15 @@ public class AuthService {
         validateRegistrationRequest(request);
 
         // 1. Check Uniqueness (Standard RuntimeException or IllegalStateException)
-        if (userRepository.existsByEmail(request.getEmail())) {
+        // The database is only asked when the availability filter cannot rule the value out
+        if (!availabilityIndex.isEmailDefinitelyFree(request.getEmail())
+                && userRepository.existsByEmail(request.getEmail())) {
             throw new IllegalStateException("Email " + request.getEmail() + " is already taken.");
         }
 
-        if (request.getPhoneNumber() != null && userRepository.existsByPhoneNumber(request.getPhoneNumber())) {
+        if (request.getPhoneNumber() != null
+                && !availabilityIndex.isPhoneNumberDefinitelyFree(request.getPhoneNumber())
+                && userRepository.existsByPhoneNumber(request.getPhoneNumber())) {
             throw new IllegalStateException("Phone number is already registered.");
         }
 
@@ -70,21 +82,22 @@ public class AuthService {
                 .build();
 
         // 3. Logic: All users (including null type) get RENTER role/profile
-        Role renterRole = roleRepository.findByName(Role.RoleName.ROLE_RENTER)
-                .orElseThrow(() -> new NoSuchElementException("System Error: ROLE_RENTER not initialized in DB"));
-
-        user.getRoles().add(renterRole);
+        user.getRoles().add(roleRegistry.get(Role.RoleName.ROLE_RENTER));
 
         // 4. If they specifically asked for VEHICLE_OWNER, add it
         if (UserType.VEHICLE_OWNER.equals(request.getUserType())) {
-            Role ownerRole = roleRepository.findByName(Role.RoleName.ROLE_VEHICLE_OWNER)
-                    .orElseThrow(
-                            () -> new NoSuchElementException("System Error: ROLE_VEHICLE_OWNER not initialized in DB"));
-            user.getRoles().add(ownerRole);
+            user.getRoles().add(roleRegistry.get(Role.RoleName.ROLE_VEHICLE_OWNER));
         }
 
         // 5. Save User first (to get the ID for foreign keys)
-        User savedUser = userRepository.save(user);
+        // The unique constraints still catch a concurrent registration of the same email or phone number
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Email or phone number is already registered.");
+        }
+        availabilityIndex.recordRegistered(savedUser.getEmail(), savedUser.getPhoneNumber());
 
         // 6. Create Profiles
         renterRepository.save(new Renter(savedUser));
@@ -95,40 +108,61 @@ public class AuthService {
             log.info("Vehicle Owner profile created for: {}", savedUser.getId());
         }
 
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getEmail()));
+
         return mapUserToDto(savedUser);
     }
 
+    /**
+     * Check whether an email and/or phone number can still be registered; null for values not asked.
+     * "Definitely free" answers come from the availability filter, the rest from the database.
+     */
+    @Transactional(readOnly = true)
+    public AvailabilityResponse checkAvailability(String email, String phoneNumber) {
+        Boolean emailAvailable = null;
+        if (email != null && !email.isBlank()) {
+            emailAvailable = availabilityIndex.isEmailDefinitelyFree(email) || !userRepository.existsByEmail(email.trim());
+        }
+        Boolean phoneNumberAvailable = null;
+        if (phoneNumber != null && !phoneNumber.isBlank()) {
+            phoneNumberAvailable = availabilityIndex.isPhoneNumberDefinitelyFree(phoneNumber)
+                    || !userRepository.existsByPhoneNumber(phoneNumber.trim());
+        }
+        return AvailabilityResponse.builder()
+                .emailAvailable(emailAvailable)
+                .phoneNumberAvailable(phoneNumberAvailable)
+                .build();
+    }
+
     /**
      * Login user and return JWT token
+     * The response is built from the principal loaded during authentication: no second lookup, no write
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LoginResponse loginUser(LoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
 
         try {
             // Authenticate user using email and password
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getEmail(),
                             request.getPassword()));
 
-            // Get user from database
-            User user = userRepository.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-            userRepository.save(user);
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
 
             // Generate tokens
-            String accessToken = tokenProvider.generateTokenFromUserId(user.getId());
+            String accessToken = tokenProvider.generateTokenFromPrincipal(principal);
 
-            log.info("User logged in successfully: {}", user.getId());
+            log.info("User logged in successfully: {}", principal.getId());
 
             return LoginResponse.builder()
                     .token(accessToken)
-                    .userId(user.getId())
-                    .email(user.getEmail())
-                    .fullName(user.getFullName())
-                    .roles(user.getRoles().stream()
-                            .map(r -> r.getName().toString())
+                    .userId(principal.getId())
+                    .email(principal.getEmail())
+                    .fullName(principal.getFullName())
+                    .roles(principal.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
                             .collect(Collectors.toSet()))
                     .expiresIn(tokenProvider.getJwtExpirationMs())
                     .build();
@@ -139,6 +173,48 @@ public class AuthService {
         }
     }
 
+    /**
+     * Grant a role to a user; bumps the security version so previously issued tokens are rejected
+     */
+    public UserDto grantRole(Long userId, Role.RoleName roleName) {
+        log.info("Granting role {} to user: {}", roleName, userId);
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
+
+        if (user.getRoles().stream().noneMatch(r -> r.getName() == roleName)) {
+            user.getRoles().add(roleRegistry.get(roleName));
+
+            if (roleName == Role.RoleName.ROLE_VEHICLE_OWNER && !vehicleOwnerRepository.existsByUserId(userId)) {
+                vehicleOwnerRepository.save(new VehicleOwner(user));
+                log.info("Vehicle Owner profile created for: {}", userId);
+            }
+
+            user.setSecurityVersion(user.getSecurityVersion() + 1);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
+        }
+
+        return mapUserToDto(user);
+    }
+
+    /**
+     * Deactivate a user account; bumps the security version so previously issued tokens are rejected
+     */
+    public UserDto deactivateUser(Long userId) {
+        log.info("Deactivating user: {}", userId);
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
+
+        if (!Boolean.FALSE.equals(user.getAccountActive())) {
+            user.setAccountActive(false);
+            user.setSecurityVersion(user.getSecurityVersion() + 1);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
+        }
+
+        return mapUserToDto(user);
+    }
+
     /**
      * Get user profile by email
      */
@@ -151,7 +227,7 @@ public class AuthService {
     /**
      * Validate registration request
      */
-    private void validateRegistrationRequest(RegisterRequest request) {
+    static void validateRegistrationRequest(RegisterRequest request) {
         if (request.getEmail() == null || request.getEmail().isBlank()) {
             throw new IllegalArgumentException("Email is required");
         }
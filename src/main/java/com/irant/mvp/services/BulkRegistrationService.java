@@ -0,0 +1,292 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.constants.UserType;
+import com.irant.mvp.dto.BulkRegistrationReport;
+import com.irant.mvp.dto.RegisterRequest;
+import com.irant.mvp.events.UserChangedEvent;
+import com.irant.mvp.models.Role;
+import com.irant.mvp.repositories.UserRepository;
+import com.irant.mvp.security.BoundedPasswordEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk account creation.
+ * Uniqueness is checked with one IN query per 1000 emails or phone numbers, passwords are hashed in parallel
+ * on the password hashing pool, and each chunk of accounts is written with one MERGE for users plus one
+ * JDBC batch each for user_roles, renters and vehicle_owners.
+ * An email registered meanwhile is skipped by the MERGE; any other conflict fails the chunk, which is then
+ * retried record by record so that only the conflicting records are rejected.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkRegistrationService {
+
+    // SQL Server caps a statement at 2100 parameters
+    private static final int LOOKUP_CHUNK = 1000;
+    // 8 parameters per row in the users MERGE
+    private static final int INSERT_CHUNK = 200;
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_SUFFIX = ") AS src (row_no, email, password, first_name, last_name, " +
+            "phone_number, country, city) " +
+            "ON t.email = src.email " +
+            "WHEN NOT MATCHED THEN INSERT (email, password, first_name, last_name, phone_number, country, city, " +
+            "account_active, security_version, created_at, updated_at) " +
+            "VALUES (src.email, src.password, src.first_name, src.last_name, src.phone_number, src.country, " +
+            "src.city, 1, 0, ?, ?) " +
+            "OUTPUT src.row_no, INSERTED.id;";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    private static final String INSERT_RENTER = "INSERT INTO renters (user_id) VALUES (?)";
+    private static final String INSERT_VEHICLE_OWNER = "INSERT INTO vehicle_owners (user_id) VALUES (?)";
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserAvailabilityIndex availabilityIndex;
+
+    @Value("${app.auth.bulkRegistration.maxRecords:10000}")
+    private int maxRecords;
+
+    /**
+     * Create every valid account of the list; each chunk commits on its own
+     */
+    public BulkRegistrationReport registerAll(List<RegisterRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("No records to register");
+        }
+        if (requests.size() > maxRecords) {
+            throw new IllegalArgumentException("At most " + maxRecords + " records per request");
+        }
+        log.info("Bulk registration of {} accounts", requests.size());
+
+        Map<Integer, BulkRegistrationReport.RecordResult> results = new HashMap<>();
+        List<Integer> accepted = validate(requests, results);
+        rejectExisting(requests, accepted, results);
+
+        List<String> hashes = passwordEncoder.encodeAll(accepted.stream().map(i -> requests.get(i).getPassword()).toList());
+        Map<Integer, String> hashByIndex = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            hashByIndex.put(accepted.get(i), hashes.get(i));
+        }
+
+        for (int from = 0; from < accepted.size(); from += INSERT_CHUNK) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + INSERT_CHUNK, accepted.size()));
+            try {
+                Map<Integer, Long> ids = transactionTemplate.execute(status -> insertChunk(requests, chunk, hashByIndex));
+                recordInserted(requests, chunk, ids, results);
+            } catch (DataAccessException e) {
+                log.warn("Bulk registration chunk of {} accounts failed, retrying one by one: {}",
+                        chunk.size(), e.getMostSpecificCause().getMessage());
+                for (Integer index : chunk) {
+                    insertOne(requests, index, hashByIndex, results);
+                }
+            }
+        }
+
+        List<BulkRegistrationReport.RecordResult> records = new ArrayList<>(requests.size());
+        int created = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            BulkRegistrationReport.RecordResult result = results.get(i);
+            records.add(result);
+            if (result.userId() != null) {
+                created++;
+            }
+        }
+        log.info("Bulk registration created {} of {} accounts", created, requests.size());
+        return BulkRegistrationReport.builder()
+                .total(requests.size())
+                .created(created)
+                .failed(requests.size() - created)
+                .records(records)
+                .build();
+    }
+
+    /**
+     * Field validation plus duplicates inside the request itself
+     */
+    private List<Integer> validate(List<RegisterRequest> requests, Map<Integer, BulkRegistrationReport.RecordResult> results) {
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            RegisterRequest request = requests.get(i);
+            if (request == null) {
+                reject(results, i, null, "Empty record");
+                continue;
+            }
+            try {
+                AuthService.validateRegistrationRequest(request);
+            } catch (IllegalArgumentException e) {
+                reject(results, i, request, e.getMessage());
+                continue;
+            }
+            // Collation insensible à la casse : les doublons aussi
+            if (!emails.add(request.getEmail().toLowerCase(Locale.ROOT))) {
+                reject(results, i, request, "Duplicate email in request");
+                continue;
+            }
+            if (request.getPhoneNumber() != null && !phones.add(request.getPhoneNumber())) {
+                reject(results, i, request, "Duplicate phone number in request");
+                continue;
+            }
+            accepted.add(i);
+        }
+        return accepted;
+    }
+
+    /**
+     * Set-based uniqueness checks against existing accounts.
+     * Values the availability filter rules out are not sent to the database at all.
+     */
+    private void rejectExisting(List<RegisterRequest> requests, List<Integer> accepted,
+                                Map<Integer, BulkRegistrationReport.RecordResult> results) {
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenPhones = new HashSet<>();
+        for (int from = 0; from < accepted.size(); from += LOOKUP_CHUNK) {
+            List<RegisterRequest> chunk = accepted.subList(from, Math.min(from + LOOKUP_CHUNK, accepted.size()))
+                    .stream().map(requests::get).toList();
+            List<String> emails = chunk.stream().map(RegisterRequest::getEmail)
+                    .filter(e -> !availabilityIndex.isEmailDefinitelyFree(e)).toList();
+            if (!emails.isEmpty()) {
+                userRepository.findExistingEmails(emails).forEach(email -> takenEmails.add(email.toLowerCase(Locale.ROOT)));
+            }
+            List<String> phones = chunk.stream().map(RegisterRequest::getPhoneNumber)
+                    .filter(p -> p != null && !availabilityIndex.isPhoneNumberDefinitelyFree(p)).toList();
+            if (!phones.isEmpty()) {
+                takenPhones.addAll(userRepository.findExistingPhoneNumbers(phones));
+            }
+        }
+
+        accepted.removeIf(index -> {
+            RegisterRequest request = requests.get(index);
+            if (takenEmails.contains(request.getEmail().toLowerCase(Locale.ROOT))) {
+                reject(results, index, request, "Email " + request.getEmail() + " is already taken.");
+                return true;
+            }
+            if (request.getPhoneNumber() != null && takenPhones.contains(request.getPhoneNumber())) {
+                reject(results, index, request, "Phone number is already registered.");
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Retry of a single record after its chunk failed: only a record that conflicts on its own is rejected
+     */
+    private void insertOne(List<RegisterRequest> requests, Integer index, Map<Integer, String> hashByIndex,
+                           Map<Integer, BulkRegistrationReport.RecordResult> results) {
+        List<Integer> single = List.of(index);
+        try {
+            Map<Integer, Long> ids = transactionTemplate.execute(status -> insertChunk(requests, single, hashByIndex));
+            recordInserted(requests, single, ids, results);
+        } catch (DataAccessException e) {
+            reject(results, index, requests.get(index), "Insert failed: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Outcome of each record of a committed chunk; a record missing from the MERGE output had its email taken meanwhile
+     */
+    private void recordInserted(List<RegisterRequest> requests, List<Integer> chunk, Map<Integer, Long> ids,
+                                Map<Integer, BulkRegistrationReport.RecordResult> results) {
+        for (Integer index : chunk) {
+            Long userId = ids.get(index);
+            RegisterRequest request = requests.get(index);
+            if (userId == null) {
+                reject(results, index, request, "Email " + request.getEmail() + " is already taken.");
+                continue;
+            }
+            results.put(index, new BulkRegistrationReport.RecordResult(index, request.getEmail(), userId, null));
+            availabilityIndex.recordRegistered(request.getEmail(), request.getPhoneNumber());
+            eventPublisher.publishEvent(new UserChangedEvent(userId, request.getEmail()));
+        }
+    }
+
+    private Map<Integer, Long> insertChunk(List<RegisterRequest> requests, List<Integer> chunk,
+                                           Map<Integer, String> hashByIndex) {
+        // HOLDLOCK : une inscription concurrente attend la fin du MERGE au lieu de passer entre le test et l'insertion
+        StringBuilder sql = new StringBuilder("MERGE INTO users WITH (HOLDLOCK) AS t USING (VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+        }
+        sql.append(MERGE_SUFFIX);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Integer, Long> ids = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            int p = 1;
+            for (Integer index : chunk) {
+                RegisterRequest request = requests.get(index);
+                ps.setInt(p++, index);
+                ps.setString(p++, request.getEmail());
+                ps.setString(p++, hashByIndex.get(index));
+                ps.setString(p++, request.getFirstName());
+                ps.setString(p++, request.getLastName());
+                ps.setObject(p++, request.getPhoneNumber(), Types.VARCHAR);
+                ps.setObject(p++, request.getCountry(), Types.VARCHAR);
+                ps.setObject(p++, request.getCity(), Types.VARCHAR);
+            }
+            ps.setTimestamp(p++, now);
+            ps.setTimestamp(p, now);
+            return ps;
+        }, rs -> {
+            ids.put(rs.getInt(1), rs.getLong(2));
+        });
+
+        // Tous les comptes reçoivent le rôle et le profil RENTER, comme l'inscription unitaire
+        Long renterRoleId = roleRegistry.idOf(Role.RoleName.ROLE_RENTER);
+        Long ownerRoleId = roleRegistry.idOf(Role.RoleName.ROLE_VEHICLE_OWNER);
+        List<Object[]> userRoles = new ArrayList<>();
+        List<Object[]> renters = new ArrayList<>();
+        List<Object[]> owners = new ArrayList<>();
+        for (Integer index : chunk) {
+            Long userId = ids.get(index);
+            if (userId == null) {
+                continue;
+            }
+            userRoles.add(new Object[]{userId, renterRoleId});
+            renters.add(new Object[]{userId});
+            if (UserType.VEHICLE_OWNER.equals(requests.get(index).getUserType())) {
+                userRoles.add(new Object[]{userId, ownerRoleId});
+                owners.add(new Object[]{userId});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles);
+        jdbcTemplate.batchUpdate(INSERT_RENTER, renters);
+        if (!owners.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_VEHICLE_OWNER, owners);
+        }
+        return ids;
+    }
+
+    private static void reject(Map<Integer, BulkRegistrationReport.RecordResult> results, int index,
+                               RegisterRequest request, String error) {
+        results.put(index, new BulkRegistrationReport.RecordResult(index, request == null ? null : request.getEmail(),
+                null, error));
+    }
+}
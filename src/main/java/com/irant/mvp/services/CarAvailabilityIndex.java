@@ -0,0 +1,211 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.BookedInterval;
+import com.irant.mvp.exceptions.ReservationConflictException;
+import com.irant.mvp.models.Reservation;
+import com.irant.mvp.repositories.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-car timelines of booked date ranges, kept as sorted non-overlapping intervals.
+ * Overlap checks are a single floor lookup (O(log n)). Writers for one car are serialized by a
+ * striped lock, so two bookings of the same car never interleave while unrelated cars rarely
+ * share a stripe. Timelines are loaded lazily from the reservations table on first use.
+ * Ranges that are over are pruned as the timeline is used, and timelines idle for a while are dropped
+ * once the index is full: the next use reloads them from the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class CarAvailabilityIndex {
+
+    private static final int STRIPES = 1024;
+    private static final long REFRESH_ON_CONFLICT_MS = 5_000;
+
+    private final ReservationRepository reservationRepository;
+
+    private final ReentrantLock[] locks = createLocks();
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Value("${app.reservations.availability.maxTimelines:100000}")
+    private int maxTimelines;
+
+    @Value("${app.reservations.availability.idleMs:3600000}")
+    private long idleMs;
+
+    /**
+     * Reserve [start, end) on a car. The persister runs while the car's lock is held and returns
+     * the new reservation id; the range is only added to the timeline if it succeeds.
+     */
+    public long book(Long carId, LocalDate start, LocalDate end, LongSupplier persister) {
+        ReentrantLock lock = lockFor(carId);
+        lock.lock();
+        try {
+            Timeline timeline = timelineFor(carId);
+            if (timeline.overlaps(start, end)) {
+                // A cancellation on another node may not be reflected yet; confirm against the database,
+                // at most once per refresh interval so a contended car does not turn every conflict into a query
+                if (System.currentTimeMillis() - timeline.loadedAtMs > REFRESH_ON_CONFLICT_MS) {
+                    timelines.remove(carId);
+                    timeline = timelineFor(carId);
+                }
+                if (timeline.overlaps(start, end)) {
+                    throw new ReservationConflictException("Car " + carId + " is already booked for the requested dates");
+                }
+            }
+            long reservationId;
+            try {
+                reservationId = persister.getAsLong();
+            } catch (ReservationConflictException e) {
+                // Another node booked the car; reload its timeline next time
+                timelines.remove(carId);
+                throw e;
+            }
+            timeline.add(reservationId, start, end);
+            return reservationId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Free the range held by a reservation
+     */
+    public void release(Long carId, Long reservationId) {
+        ReentrantLock lock = lockFor(carId);
+        lock.lock();
+        try {
+            Timeline timeline = timelines.get(carId);
+            if (timeline != null) {
+                timeline.remove(reservationId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * True if no reservation of the car overlaps [start, end)
+     */
+    public boolean isFree(Long carId, LocalDate start, LocalDate end) {
+        ReentrantLock lock = lockFor(carId);
+        lock.lock();
+        try {
+            return !timelineFor(carId).overlaps(start, end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Timeline timelineFor(Long carId) {
+        Timeline timeline = timelines.get(carId);
+        if (timeline != null) {
+            timeline.lastUsedMs = System.currentTimeMillis();
+        } else {
+            if (timelines.size() >= maxTimelines) {
+                evictIdle();
+            }
+            timeline = new Timeline();
+            for (BookedInterval interval : reservationRepository.findActiveIntervals(
+                    carId, Reservation.Status.BLOCKING, LocalDate.now(), LocalDateTime.now())) {
+                timeline.add(interval.reservationId(), interval.startDate(), interval.endDate());
+            }
+            timelines.put(carId, timeline);
+        }
+        return timeline;
+    }
+
+    /**
+     * Drop timelines unused for idleMs; if still full, drop an arbitrary tenth.
+     * Safe without the cars' locks: a thread still holding a dropped timeline only updates a copy
+     * that is no longer served, and the database stays the reference for the next load.
+     * Only one thread sweeps at a time, the others carry on.
+     */
+    private void evictIdle() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long idleSince = System.currentTimeMillis() - idleMs;
+            timelines.values().removeIf(t -> t.lastUsedMs < idleSince);
+            if (timelines.size() >= maxTimelines) {
+                int excess = timelines.size() - maxTimelines + Math.max(1, maxTimelines / 10);
+                Iterator<Long> it = timelines.keySet().iterator();
+                while (excess-- > 0 && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private ReentrantLock lockFor(Long carId) {
+        return locks[Math.floorMod(Long.hashCode(carId), STRIPES)];
+    }
+
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    /**
+     * Non-overlapping half-open intervals of one car, keyed by start date.
+     * Only accessed while holding the car's stripe lock, except lastUsedMs read by the eviction sweep.
+     */
+    private static final class Timeline {
+        private final TreeMap<LocalDate, BookedInterval> byStart = new TreeMap<>();
+        private final Map<Long, LocalDate> startById = new HashMap<>();
+        private final long loadedAtMs = System.currentTimeMillis();
+        private volatile long lastUsedMs = loadedAtMs;
+
+        boolean overlaps(LocalDate start, LocalDate end) {
+            pruneEnded();
+            // With sorted disjoint intervals, only the last one starting before `end` can overlap
+            Map.Entry<LocalDate, BookedInterval> candidate = byStart.lowerEntry(end);
+            return candidate != null && candidate.getValue().endDate().isAfter(start);
+        }
+
+        void add(Long reservationId, LocalDate start, LocalDate end) {
+            pruneEnded();
+            byStart.put(start, new BookedInterval(reservationId, start, end));
+            startById.put(reservationId, start);
+        }
+
+        void remove(Long reservationId) {
+            LocalDate start = startById.remove(reservationId);
+            if (start != null) {
+                byStart.remove(start);
+            }
+        }
+
+        /**
+         * Drop the ranges over by today; disjoint and sorted by start, they are also sorted by end
+         */
+        private void pruneEnded() {
+            LocalDate today = LocalDate.now();
+            Map.Entry<LocalDate, BookedInterval> first;
+            while ((first = byStart.firstEntry()) != null && !first.getValue().endDate().isAfter(today)) {
+                byStart.pollFirstEntry();
+                startById.remove(first.getValue().reservationId());
+            }
+        }
+    }
+}
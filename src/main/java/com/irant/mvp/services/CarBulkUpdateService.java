@@ -0,0 +1,169 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.CarBulkChange;
+import com.irant.mvp.dto.CarBulkUpdateReport;
+import com.irant.mvp.events.CarChangedEvent;
+import com.irant.mvp.repositories.AgencyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Availability, price and city changes for many cars of the caller's agency.
+ * Changes are applied in one transaction with one UPDATE ... FROM (VALUES ...) per chunk: the join on the
+ * agency id is the ownership check, and OUTPUT returns the updated ids in the same round trip.
+ * One CarChangedEvent carries every updated id, so the search index and the catalogue cache refresh once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarBulkUpdateService {
+
+    // 4 parameters per row: 400 rows stay below SQL Server's 2100 parameters per statement
+    private static final int CHUNK_SIZE = 400;
+    private static final BigDecimal MAX_DECIMAL = new BigDecimal("100000000"); // DECIMAL(10,2)
+
+    // Les CAST typent les colonnes de VALUES même quand toutes les valeurs d'une colonne sont NULL
+    private static final String ROW_PLACEHOLDERS =
+            "(?, CAST(? AS BIT), CAST(? AS DECIMAL(10,2)), CAST(? AS VARCHAR(100)))";
+    private static final String UPDATE_PREFIX = "UPDATE c SET " +
+            "is_available = COALESCE(v.is_available, c.is_available), " +
+            "price_per_day = COALESCE(v.price_per_day, c.price_per_day), " +
+            "city = COALESCE(v.city, c.city), updated_at = ?, version = c.version + 1 " +
+            "OUTPUT INSERTED.id " +
+            "FROM cars AS c JOIN (VALUES ";
+    private static final String UPDATE_SUFFIX = ") AS v (id, is_available, price_per_day, city) ON c.id = v.id " +
+            "WHERE c.agency_id = ?;";
+
+    private final AgencyRepository agencyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cars.bulkUpdate.maxChanges:5000}")
+    private int maxChanges;
+
+    /**
+     * Apply every valid change in one transaction; invalid, unknown and foreign cars are reported, not updated
+     */
+    public CarBulkUpdateReport updateCars(List<CarBulkChange> changes, Long userId) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("No changes to apply");
+        }
+        if (changes.size() > maxChanges) {
+            throw new IllegalArgumentException("At most " + maxChanges + " changes per request");
+        }
+        Long agencyId = agencyRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
+
+        List<CarBulkUpdateReport.Rejection> rejected = new ArrayList<>();
+        List<Integer> accepted = new ArrayList<>(changes.size());
+        Set<Long> seenIds = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            CarBulkChange change = changes.get(i);
+            String error = validate(change);
+            if (error == null && !seenIds.add(change.getId())) {
+                error = "Duplicate car id in request";
+            }
+            if (error != null) {
+                rejected.add(new CarBulkUpdateReport.Rejection(i, change == null ? null : change.getId(), error));
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        Set<Long> updatedIds = accepted.isEmpty() ? Set.of() : transactionTemplate.execute(status -> {
+            Set<Long> ids = new HashSet<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int from = 0; from < accepted.size(); from += CHUNK_SIZE) {
+                List<CarBulkChange> chunk = accepted.subList(from, Math.min(from + CHUNK_SIZE, accepted.size()))
+                        .stream().map(changes::get).toList();
+                ids.addAll(updateChunk(chunk, agencyId, now));
+            }
+            if (!ids.isEmpty()) {
+                eventPublisher.publishEvent(new CarChangedEvent(List.copyOf(ids)));
+            }
+            return ids;
+        });
+
+        List<Long> updated = new ArrayList<>(updatedIds.size());
+        for (int index : accepted) {
+            Long carId = changes.get(index).getId();
+            if (updatedIds.contains(carId)) {
+                updated.add(carId);
+            } else {
+                // Même réponse pour une voiture inexistante ou d'une autre agence
+                rejected.add(new CarBulkUpdateReport.Rejection(index, carId, "Car not found"));
+            }
+        }
+        rejected.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        log.info("Bulk update of {} cars for agency {}: {} updated", changes.size(), agencyId, updated.size());
+
+        return CarBulkUpdateReport.builder()
+                .total(changes.size())
+                .updated(updated.size())
+                .failed(rejected.size())
+                .updatedIds(updated)
+                .rejected(rejected)
+                .build();
+    }
+
+    private static String validate(CarBulkChange change) {
+        if (change == null || change.getId() == null) {
+            return "id is required";
+        }
+        if (change.getIsAvailable() == null && change.getPricePerDay() == null && change.getCity() == null) {
+            return "No field to change";
+        }
+        if (change.getPricePerDay() != null
+                && (change.getPricePerDay().signum() <= 0 || change.getPricePerDay().compareTo(MAX_DECIMAL) >= 0)) {
+            return "pricePerDay must be positive and below " + MAX_DECIMAL;
+        }
+        if (change.getCity() != null && (change.getCity().isBlank() || change.getCity().length() > 100)) {
+            return "city must be non-empty and at most 100 characters";
+        }
+        return null;
+    }
+
+    /**
+     * Update one chunk of cars owned by the agency and return the ids actually updated
+     */
+    private List<Long> updateChunk(List<CarBulkChange> chunk, Long agencyId, Timestamp now) {
+        StringBuilder sql = new StringBuilder(UPDATE_PREFIX);
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+        }
+        sql.append(UPDATE_SUFFIX);
+        List<Long> ids = new ArrayList<>(chunk.size());
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            int p = 1;
+            ps.setTimestamp(p++, now);
+            for (CarBulkChange change : chunk) {
+                ps.setLong(p++, change.getId());
+                ps.setObject(p++, change.getIsAvailable(), Types.BIT);
+                ps.setObject(p++, change.getPricePerDay(), Types.DECIMAL);
+                ps.setObject(p++, change.getCity(), Types.VARCHAR);
+            }
+            ps.setLong(p, agencyId);
+            return ps;
+        }, rs -> {
+            ids.add(rs.getLong(1));
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,254 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.cache.SingleFlight;
+import com.irant.mvp.constants.CarSort;
+import com.irant.mvp.dto.CarPage;
+import com.irant.mvp.dto.CarSummary;
+import com.irant.mvp.dto.CollectionVersion;
+import com.irant.mvp.events.CarChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized pages of the available-cars catalogue, served as stored bytes (plain and optionally gzipped).
+ * The page content is the same for every renter, so each distinct (sort, city, size, cursor) page is encoded once
+ * and reused until the catalogue fingerprint changes.
+ * <p>
+ * The cached pages live in an immutable snapshot swapped with CAS: readers never block, writers copy.
+ * A committed car change starts a new empty generation and re-encodes the pages of the previous one on a
+ * background thread. A cached page is served straight from the snapshot, without any lookup, for
+ * app.cars.catalogue.versionTtlMs after it was built or last checked; past that its fingerprint is compared with
+ * the current one, so changes committed on other nodes are picked up as well.
+ * When the snapshot is full, the page built longest ago makes room; concurrent misses on the same page and
+ * fingerprint share one encoding.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarCatalogueCache {
+
+    private final CarService carService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cars.catalogue.maxPages:256}")
+    private int maxPages;
+
+    @Value("${app.cars.catalogue.gzip:true}")
+    private boolean gzip;
+
+    @Value("${app.cars.catalogue.versionTtlMs:5000}")
+    private long revalidateAfterMs;
+
+    @Value("${app.cache.singleFlightTimeoutMs:2000}")
+    private long singleFlightTimeoutMs;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, Map.of()));
+    private final Set<PageKey> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private ExecutorService rebuildExecutor;
+    private SingleFlight<PageLoad, EncodedPage> pageLoads;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Page key; size is the requested size (null for the default)
+     */
+    public record PageKey(CarSort sort, String city, Integer size, String cursor) {
+    }
+
+    /**
+     * Encoded page; gzipped is null when compression is disabled, checkedAtNanos is when the fingerprint was last
+     * known to be current
+     */
+    public record EncodedPage(CollectionVersion version, byte[] json, byte[] gzipped, long checkedAtNanos) {
+    }
+
+    /**
+     * Pages in build order, oldest first; never modified once published
+     */
+    private record Snapshot(long generation, Map<PageKey, EncodedPage> pages) {
+    }
+
+    private record PageLoad(PageKey key, CollectionVersion version) {
+    }
+
+    @PostConstruct
+    void init() {
+        rebuildExecutor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("car-catalogue-rebuild").daemon(true).factory());
+        pageLoads = new SingleFlight<>(singleFlightTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Encode the first page of each sort in the background once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<PageKey> firstPages = List.of(new PageKey(CarSort.NEWEST, null, null, null),
+                new PageKey(CarSort.PRICE, null, null, null));
+        submitRebuild(firstPages);
+    }
+
+    /**
+     * Encoded page, served from memory while recently checked; otherwise checked against the current
+     * fingerprint, and built and cached on a miss
+     */
+    public EncodedPage getPage(CarSort sort, String city, Integer size, String cursor) {
+        PageKey key = new PageKey(sort, (city == null || city.isBlank()) ? null : city, size,
+                (cursor == null || cursor.isBlank()) ? null : cursor);
+        Snapshot current = snapshot.get();
+        EncodedPage page = current.pages().get(key);
+        long now = System.nanoTime();
+        if (page != null && now - page.checkedAtNanos() < TimeUnit.MILLISECONDS.toNanos(revalidateAfterMs)) {
+            hits.increment();
+            return page;
+        }
+
+        CollectionVersion version = carService.getAvailableCarsVersion(key.city());
+        if (page != null && page.version().equals(version)) {
+            hits.increment();
+            EncodedPage checked = new EncodedPage(version, page.json(), page.gzipped(), now);
+            publish(current.generation(), key, checked);
+            return checked;
+        }
+        misses.increment();
+        // Les requêtes simultanées sur la même page partagent un seul encodage
+        return pageLoads.load(new PageLoad(key, version), () -> {
+            EncodedPage built = encode(key, version);
+            publish(current.generation(), key, built);
+            return built;
+        });
+    }
+
+    /**
+     * Start a new generation after committed car changes and re-encode the pages of the previous one
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCarsChanged(CarChangedEvent event) {
+        Snapshot previous = snapshot.getAndUpdate(s -> new Snapshot(s.generation() + 1, Map.of()));
+        submitRebuild(List.copyOf(previous.pages().keySet()));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return snapshot.get().pages().size();
+    }
+
+    private void submitRebuild(List<PageKey> keys) {
+        pendingKeys.addAll(keys);
+        if (pendingKeys.isEmpty() || !rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(this::rebuild);
+        } catch (RejectedExecutionException e) {
+            rebuildPending.set(false);
+        }
+    }
+
+    /**
+     * Re-encode the warm pages into the current generation; pages requested meanwhile are kept
+     */
+    private void rebuild() {
+        // Remis à false avant le travail : un changement pendant la reconstruction en relance une autre
+        rebuildPending.set(false);
+        Snapshot start = snapshot.get();
+        List<PageKey> keys = List.copyOf(pendingKeys);
+        pendingKeys.removeAll(keys);
+        long begin = System.nanoTime();
+        int built = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            PageKey key = keys.get(i);
+            if (snapshot.get().generation() != start.generation()) {
+                // Une modification plus récente a planifié sa propre reconstruction : lui passer le reste
+                pendingKeys.addAll(keys.subList(i, keys.size()));
+                return;
+            }
+            try {
+                CollectionVersion version = carService.readAvailableCarsVersion(key.city());
+                publish(start.generation(), key, encode(key, version));
+                built++;
+            } catch (RuntimeException e) {
+                log.warn("Could not rebuild catalogue page {}: {}", key, e.getMessage());
+            }
+        }
+        log.debug("Rebuilt {} catalogue pages in {} ms", built, (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    private EncodedPage encode(PageKey key, CollectionVersion version) {
+        CarPage<CarSummary> page = carService.getAvailableCars(key.sort(), key.city(), key.size(), key.cursor());
+        byte[] json = objectMapper.writeValueAsBytes(page);
+        return new EncodedPage(version, json, gzip ? gzip(json) : null, System.nanoTime());
+    }
+
+    /**
+     * Copy-on-write insert as the newest page, evicting the oldest ones when full; dropped if the generation moved on
+     */
+    private void publish(long generation, PageKey key, EncodedPage page) {
+        snapshot.updateAndGet(s -> {
+            if (s.generation() != generation) {
+                return s;
+            }
+            LinkedHashMap<PageKey, EncodedPage> pages = new LinkedHashMap<>(s.pages());
+            pages.remove(key);
+            Iterator<PageKey> oldest = pages.keySet().iterator();
+            while (pages.size() >= Math.max(1, maxPages) && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+            pages.put(key, page);
+            return new Snapshot(generation, Collections.unmodifiableMap(pages));
+        });
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
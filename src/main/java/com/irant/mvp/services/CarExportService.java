@@ -0,0 +1,135 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.CarExport;
+import com.irant.mvp.dto.CarExportRow;
+import com.irant.mvp.repositories.AgencyRepository;
+import com.irant.mvp.repositories.CarRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fleet export of an agency as NDJSON or CSV.
+ * Rows are read as projections from a forward-only cursor and written as they arrive,
+ * so memory use does not depend on the size of the fleet.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    // Mêmes colonnes que l'import CSV : un export peut être réimporté tel quel
+    private static final String CSV_HEADER = "id,brand,model,year,pricePerDay,transmission,fuelType,seatingCapacity," +
+            "color,licensePlate,rangeInMiles,description,isAvailable,city,imageUrls,createdAt,updatedAt";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final AgencyRepository agencyRepository;
+    private final CarRepository carRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Agency of the given user, resolved before the response starts streaming
+     */
+    public Long resolveAgencyId(String userEmail) {
+        return agencyRepository.findIdByUserEmail(userEmail)
+                .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
+    }
+
+    /**
+     * Write every car of the agency to the output, one line per car
+     */
+    public void writeFleet(Long agencyId, Format format, OutputStream out) throws IOException {
+        log.info("Exporting fleet of agency {} as {}", agencyId, format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        // The stream needs an open connection until the last row; this runs outside the request's thread
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long count;
+        try {
+            count = readOnly.execute(status -> {
+                try (Stream<CarExportRow> rows = carRepository.streamExportRows(agencyId)) {
+                    return writeCars(rows.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Exported {} cars of agency {}", count, agencyId);
+    }
+
+    /**
+     * Fold consecutive (car, image) rows into one car each and write them out
+     */
+    private long writeCars(Iterator<CarExportRow> rows, Format format, Writer writer) throws IOException {
+        long count = 0;
+        CarExportRow current = null;
+        List<String> images = new ArrayList<>();
+        while (rows.hasNext()) {
+            CarExportRow row = rows.next();
+            if (current != null && !current.id().equals(row.id())) {
+                write(CarExport.of(current, images), format, writer);
+                count++;
+                images = new ArrayList<>();
+            }
+            current = row;
+            if (row.imageUrl() != null) {
+                images.add(row.imageUrl());
+            }
+        }
+        if (current != null) {
+            write(CarExport.of(current, images), format, writer);
+            count++;
+        }
+        return count;
+    }
+
+    private void write(CarExport car, Format format, Writer writer) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(car));
+        } else {
+            writer.write(String.join(",",
+                    csv(car.id()), csv(car.brand()), csv(car.model()), csv(car.year()), csv(car.pricePerDay()),
+                    csv(car.transmission()), csv(car.fuelType()), csv(car.seatingCapacity()), csv(car.color()),
+                    csv(car.licensePlate()), csv(car.rangeInMiles()), csv(car.description()), csv(car.isAvailable()),
+                    csv(car.city()), csv(String.join("|", car.imageUrls())), csv(car.createdAt()), csv(car.updatedAt())));
+        }
+        writer.write('\n');
+    }
+
+    static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,465 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.CarImportReport;
+import com.irant.mvp.dto.CarImportRow;
+import com.irant.mvp.events.CarChangedEvent;
+import com.irant.mvp.repositories.AgencyRepository;
+import com.irant.mvp.repositories.CarRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of an agency's fleet from a JSON array or a CSV file.
+ * Rows are parsed and validated one at a time, then inserted in chunks: one MERGE statement per chunk
+ * returns the generated ids in a single round trip, and the images of the chunk go through one JDBC batch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarImportService {
+
+    public enum Format { JSON, CSV }
+
+    // 14 parameters per row: 100 rows stay well below SQL Server's 2100 parameters per statement
+    private static final int CHUNK_SIZE = 100;
+    private static final BigDecimal MAX_DECIMAL = new BigDecimal("100000000"); // DECIMAL(10,2)
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_SUFFIX = ") AS src (row_no, brand, model, year, price_per_day, transmission, " +
+            "fuel_type, seating_capacity, color, license_plate, range_in_miles, description, is_available, city) " +
+            "ON 1 = 0 " +
+            "WHEN NOT MATCHED THEN INSERT (brand, model, year, price_per_day, transmission, fuel_type, " +
+            "seating_capacity, color, license_plate, range_in_miles, description, is_available, city, agency_id, " +
+            "created_at, updated_at) " +
+            "VALUES (src.brand, src.model, src.year, src.price_per_day, src.transmission, src.fuel_type, " +
+            "src.seating_capacity, src.color, src.license_plate, src.range_in_miles, src.description, " +
+            "src.is_available, src.city, ?, ?, ?) " +
+            "OUTPUT src.row_no, INSERTED.id;";
+    private static final String INSERT_IMAGE = "INSERT INTO car_images (car_id, image_url) VALUES (?, ?)";
+
+    private final AgencyRepository agencyRepository;
+    private final CarRepository carRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Import cars for the agency of the given user; each chunk commits on its own
+     */
+    public CarImportReport importCars(InputStream input, Format format, String userEmail) throws IOException {
+        log.info("Importing cars ({}) for user: {}", format, userEmail);
+
+        // Résoudre l'agence une seule fois pour tout le fichier
+        Long agencyId = agencyRepository.findIdByUserEmail(userEmail)
+                .orElseThrow(() -> new IllegalStateException("User does not have an agency. Please create an agency first."));
+
+        ImportBatch batch = new ImportBatch(agencyId);
+        if (format == Format.CSV) {
+            readCsv(input, batch);
+        } else {
+            readJson(input, batch);
+        }
+        batch.flush();
+
+        if (!batch.importedIds.isEmpty()) {
+            eventPublisher.publishEvent(new CarChangedEvent(batch.importedIds));
+        }
+        CarImportReport report = batch.report();
+        log.info("Imported {} of {} cars for agency {}", report.getImported(), report.getTotal(), agencyId);
+        return report;
+    }
+
+    /**
+     * Read a JSON array element by element; a malformed document stops the import at that point
+     */
+    private void readJson(InputStream input, ImportBatch batch) {
+        int row = 0;
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of cars");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    batch.reject(row + 1, "Unexpected end of JSON input");
+                    return;
+                }
+                row++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    batch.reject(row, "Expected a JSON object");
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    batch.accept(row, objectMapper.treeToValue(node, CarImportRow.class));
+                } catch (JacksonException e) {
+                    batch.reject(row, "Invalid field: " + e.getOriginalMessage());
+                }
+            }
+        } catch (JacksonException e) {
+            batch.reject(row + 1, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Read a CSV file record by record; the header names the columns, imageUrls are separated by '|'
+     */
+    private void readCsv(InputStream input, ImportBatch batch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input is empty");
+        }
+        List<String> columns = header.stream()
+                .map(c -> c.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                .toList();
+
+        int row = 0;
+        while (true) {
+            List<String> values;
+            try {
+                values = readCsvRecord(reader);
+            } catch (IllegalArgumentException e) {
+                // Guillemet non fermé : le reste du fichier n'est plus découpable
+                batch.reject(row + 1, e.getMessage());
+                return;
+            }
+            if (values == null) {
+                return;
+            }
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                batch.accept(row, toImportRow(columns, values));
+            } catch (IllegalArgumentException e) {
+                batch.reject(row, e.getMessage());
+            }
+        }
+    }
+
+    private static CarImportRow toImportRow(List<String> columns, List<String> values) {
+        if (values.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns, got " + values.size());
+        }
+        CarImportRow car = new CarImportRow();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            String column = columns.get(i);
+            try {
+                switch (column) {
+                    case "brand" -> car.setBrand(value);
+                    case "model" -> car.setModel(value);
+                    case "year" -> car.setYear(Integer.valueOf(value));
+                    case "priceperday" -> car.setPricePerDay(new BigDecimal(value));
+                    case "transmission" -> car.setTransmission(value);
+                    case "fueltype" -> car.setFuelType(value);
+                    case "seatingcapacity" -> car.setSeatingCapacity(Integer.valueOf(value));
+                    case "color" -> car.setColor(value);
+                    case "licenseplate" -> car.setLicensePlate(value);
+                    case "rangeinmiles" -> car.setRangeInMiles(new BigDecimal(value));
+                    case "description" -> car.setDescription(value);
+                    case "isavailable" -> car.setIsAvailable(Boolean.parseBoolean(value));
+                    case "city" -> car.setCity(value);
+                    case "imageurls" -> car.setImageUrls(Arrays.stream(value.split("\\|"))
+                            .map(String::trim).filter(s -> !s.isEmpty()).toList());
+                    default -> { } // Colonnes inconnues ignorées
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + column + ": " + value);
+            }
+        }
+        return car;
+    }
+
+    /**
+     * Read one CSV record (RFC 4180): fields may be quoted, with "" as an escaped quote, and a quoted field
+     * may span line breaks. Records end with LF, CRLF or CR; returns null at end of input
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; c >= 0; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String validate(CarImportRow car) {
+        if (isBlank(car.getBrand()) || isBlank(car.getModel())) {
+            return "brand and model are required";
+        }
+        if (car.getBrand().length() > 100 || car.getModel().length() > 100) {
+            return "brand and model must be at most 100 characters";
+        }
+        int maxYear = Year.now().getValue() + 1;
+        if (car.getYear() == null || car.getYear() < 1900 || car.getYear() > maxYear) {
+            return "year must be between 1900 and " + maxYear;
+        }
+        if (car.getPricePerDay() == null || car.getPricePerDay().signum() <= 0
+                || car.getPricePerDay().compareTo(MAX_DECIMAL) >= 0) {
+            return "pricePerDay must be positive and below " + MAX_DECIMAL;
+        }
+        if (car.getRangeInMiles() != null
+                && (car.getRangeInMiles().signum() < 0 || car.getRangeInMiles().compareTo(MAX_DECIMAL) >= 0)) {
+            return "rangeInMiles must be positive and below " + MAX_DECIMAL;
+        }
+        if (car.getSeatingCapacity() != null && car.getSeatingCapacity() < 0) {
+            return "seatingCapacity cannot be negative";
+        }
+        if (isBlank(car.getLicensePlate()) || car.getLicensePlate().length() > 50) {
+            return "licensePlate is required and must be at most 50 characters";
+        }
+        if (car.getImageUrls() != null && car.getImageUrls().stream().anyMatch(url -> isBlank(url) || url.length() > 500)) {
+            return "imageUrls must be non-empty and at most 500 characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Accumulates validated rows and writes them one chunk at a time
+     */
+    private final class ImportBatch {
+        private final Long agencyId;
+        private final List<PendingRow> pending = new ArrayList<>(CHUNK_SIZE);
+        private final Set<String> seenPlates = new HashSet<>();
+        private final List<CarImportReport.RowResult> results = new ArrayList<>();
+        private final List<Long> importedIds = new ArrayList<>();
+
+        ImportBatch(Long agencyId) {
+            this.agencyId = agencyId;
+        }
+
+        void accept(int row, CarImportRow car) {
+            String error = validate(car);
+            if (error != null) {
+                reject(row, error);
+                return;
+            }
+            car.setLicensePlate(car.getLicensePlate().trim());
+            // Les plaques sont uniques (collation insensible à la casse)
+            if (!seenPlates.add(car.getLicensePlate().toUpperCase(Locale.ROOT))) {
+                reject(row, "Duplicate licensePlate in import: " + car.getLicensePlate());
+                return;
+            }
+            pending.add(new PendingRow(row, car));
+            if (pending.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(int row, String error) {
+            results.add(new CarImportReport.RowResult(row, null, error));
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingRow> chunk = withoutExistingPlates(List.copyOf(pending));
+            pending.clear();
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                Map<Integer, Long> ids = transactionTemplate.execute(status -> insertChunk(chunk, agencyId));
+                recordInserted(chunk, ids);
+            } catch (DataAccessException e) {
+                // Une seule ligne en conflit (ex. plaque insérée entre-temps) : rejouer ligne par ligne
+                log.warn("Import chunk of {} cars failed, retrying one by one: {}",
+                        chunk.size(), e.getMostSpecificCause().getMessage());
+                chunk.forEach(this::insertOne);
+            }
+        }
+
+        private void insertOne(PendingRow pendingRow) {
+            List<PendingRow> single = List.of(pendingRow);
+            try {
+                recordInserted(single, transactionTemplate.execute(status -> insertChunk(single, agencyId)));
+            } catch (DataAccessException e) {
+                reject(pendingRow.row(), "Insert failed: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+
+        private void recordInserted(List<PendingRow> chunk, Map<Integer, Long> ids) {
+            for (PendingRow pendingRow : chunk) {
+                Long carId = ids.get(pendingRow.row());
+                results.add(new CarImportReport.RowResult(pendingRow.row(), carId, carId == null ? "Not inserted" : null));
+                if (carId != null) {
+                    importedIds.add(carId);
+                }
+            }
+        }
+
+        private List<PendingRow> withoutExistingPlates(List<PendingRow> chunk) {
+            Set<String> existing = new HashSet<>();
+            carRepository.findExistingLicensePlates(chunk.stream().map(r -> r.car().getLicensePlate()).toList())
+                    .forEach(plate -> existing.add(plate.toUpperCase(Locale.ROOT)));
+            if (existing.isEmpty()) {
+                return chunk;
+            }
+            List<PendingRow> remaining = new ArrayList<>(chunk.size());
+            for (PendingRow pendingRow : chunk) {
+                if (existing.contains(pendingRow.car().getLicensePlate().toUpperCase(Locale.ROOT))) {
+                    reject(pendingRow.row(), "licensePlate already registered: " + pendingRow.car().getLicensePlate());
+                } else {
+                    remaining.add(pendingRow);
+                }
+            }
+            return remaining;
+        }
+
+        CarImportReport report() {
+            results.sort((a, b) -> Integer.compare(a.row(), b.row()));
+            return CarImportReport.builder()
+                    .total(results.size())
+                    .imported(importedIds.size())
+                    .failed(results.size() - importedIds.size())
+                    .rows(results)
+                    .build();
+        }
+    }
+
+    /**
+     * Insert a chunk of cars with one MERGE ... OUTPUT (which, unlike INSERT ... OUTPUT, can return the source
+     * row number next to each identity value), then their images in one JDBC batch
+     */
+    private Map<Integer, Long> insertChunk(List<PendingRow> chunk, Long agencyId) {
+        StringBuilder sql = new StringBuilder("MERGE INTO cars AS t USING (VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+        }
+        sql.append(MERGE_SUFFIX);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Integer, Long> ids = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            int p = 1;
+            for (PendingRow pendingRow : chunk) {
+                CarImportRow car = pendingRow.car();
+                ps.setInt(p++, pendingRow.row());
+                ps.setString(p++, car.getBrand());
+                ps.setString(p++, car.getModel());
+                ps.setInt(p++, car.getYear());
+                ps.setBigDecimal(p++, car.getPricePerDay());
+                ps.setObject(p++, car.getTransmission(), Types.VARCHAR);
+                ps.setObject(p++, car.getFuelType(), Types.VARCHAR);
+                // L'entité mappe seatingCapacity sur un int : jamais de NULL
+                ps.setInt(p++, car.getSeatingCapacity() == null ? 0 : car.getSeatingCapacity());
+                ps.setObject(p++, car.getColor(), Types.VARCHAR);
+                ps.setString(p++, car.getLicensePlate());
+                ps.setObject(p++, car.getRangeInMiles(), Types.DECIMAL);
+                ps.setObject(p++, car.getDescription(), Types.VARCHAR);
+                ps.setBoolean(p++, car.getIsAvailable() == null || car.getIsAvailable());
+                ps.setObject(p++, car.getCity(), Types.VARCHAR);
+            }
+            ps.setLong(p++, agencyId);
+            ps.setTimestamp(p++, now);
+            ps.setTimestamp(p, now);
+            return ps;
+        }, rs -> {
+            ids.put(rs.getInt(1), rs.getLong(2));
+        });
+
+        List<Object[]> images = new ArrayList<>();
+        for (PendingRow pendingRow : chunk) {
+            List<String> urls = pendingRow.car().getImageUrls();
+            Long carId = ids.get(pendingRow.row());
+            if (urls == null || carId == null) {
+                continue;
+            }
+            // (car_id, image_url) est la clé primaire de car_images, comparée comme SQL Server :
+            // sans tenir compte de la casse ni des espaces finaux
+            Set<String> seenUrls = new HashSet<>();
+            for (String url : urls) {
+                if (seenUrls.add(url.stripTrailing().toLowerCase(Locale.ROOT))) {
+                    images.add(new Object[]{carId, url});
+                }
+            }
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, images);
+        }
+        return ids;
+    }
+
+    private record PendingRow(int row, CarImportRow car) {
+    }
+}
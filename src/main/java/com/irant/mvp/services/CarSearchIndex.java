@@ -0,0 +1,405 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.constants.CarFacet;
+import com.irant.mvp.dto.CarFacets;
+import com.irant.mvp.dto.CarIndexRow;
+import com.irant.mvp.dto.CarSearchCriteria;
+import com.irant.mvp.events.CarChangedEvent;
+import com.irant.mvp.repositories.CarRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory bitmap index over the car attributes renters filter on.
+ * Each attribute value maps to a compressed (Roaring) bitmap of car ids, so an AND/OR filter is a handful of
+ * container-wise bitmap operations whose memory follows the number of cars, not the largest id;
+ * only the matching page of ids is hydrated from the database.
+ * Built from the cars table at startup and kept current from CarChangedEvent.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarSearchIndex {
+
+    // Upper bounds of the price bands: 0-50, 50-100, 100-200, 200-500, 500+
+    private static final int[] PRICE_BAND_BOUNDS = {50, 100, 200, 500};
+    private static final int REINDEX_CHUNK = 1000;
+
+    private final CarRepository carRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps = new Bitmaps(); // guarded by lock
+
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Ids of one page of matching cars, newest (highest id) first, and the total match count
+     */
+    public record SearchHits(long total, List<Long> ids) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the whole index from the cars table and swap it in
+     */
+    public void rebuild() {
+        rebuilding = true;
+        Bitmaps fresh = new Bitmaps();
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<CarIndexRow> rows = carRepository.streamIndexRows()) {
+                    rows.forEach(fresh::add);
+                }
+            });
+            fresh.optimize();
+
+            lock.writeLock().lock();
+            try {
+                bitmaps = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+        }
+        log.info("Car search index built with {} cars ({} bytes of bitmaps)", fresh.docs.size(), fresh.sizeInBytes());
+
+        // Changes committed while the snapshot was being read
+        if (!changedDuringRebuild.isEmpty()) {
+            List<Long> ids = new ArrayList<>(changedDuringRebuild);
+            changedDuringRebuild.removeAll(ids);
+            reindex(ids);
+        }
+    }
+
+    /**
+     * Apply committed car changes to the index
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCarsChanged(CarChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.carIds());
+        }
+        reindex(event.carIds());
+    }
+
+    /**
+     * Reload the given cars' attributes; ids that no longer exist are dropped
+     */
+    public void reindex(Collection<Long> carIds) {
+        if (carIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(new HashSet<>(carIds));
+        List<CarIndexRow> rows = new ArrayList<>(ids.size());
+        // SQL Server caps a statement at 2100 parameters
+        for (int from = 0; from < ids.size(); from += REINDEX_CHUNK) {
+            rows.addAll(carRepository.findIndexRowsByIdIn(ids.subList(from, Math.min(from + REINDEX_CHUNK, ids.size()))));
+        }
+        Set<Long> missing = new HashSet<>(ids);
+
+        lock.writeLock().lock();
+        try {
+            for (CarIndexRow row : rows) {
+                bitmaps.add(row);
+                missing.remove(row.id());
+            }
+            missing.forEach(bitmaps::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluate the filter and return one page of matching ids
+     */
+    public SearchHits search(CarSearchCriteria criteria, int page, int size) {
+        lock.readLock().lock();
+        try {
+            // Peut être un bitmap de l'index : lu sous le verrou, jamais modifié
+            RoaringBitmap matches = match(bitmaps, criteria.getAvailable(), criteria.filters(), null);
+            long total = matches.getLongCardinality();
+            List<Long> ids = new ArrayList<>(size);
+            // Plus récents d'abord : le k-ième résultat est le (total - 1 - k)-ième id par ordre croissant
+            for (long k = (long) page * size; k < total && ids.size() < size; k++) {
+                ids.add(Integer.toUnsignedLong(matches.select((int) (total - 1 - k))));
+            }
+            return new SearchHits(total, ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count matching cars per value of every facet.
+     * Each facet is counted against the filter without its own attribute, so selecting
+     * "Diesel" still shows how many cars the other fuel types would give.
+     * The unfiltered catalogue view is answered from incrementally maintained counters.
+     */
+    public CarFacets facets(CarSearchCriteria criteria) {
+        Map<CarFacet, Set<String>> filters = criteria.filters();
+        Map<CarFacet, Map<String, Long>> counts = new EnumMap<>(CarFacet.class);
+        long total;
+
+        lock.readLock().lock();
+        try {
+            if (filters.isEmpty() && Boolean.TRUE.equals(criteria.getAvailable())) {
+                for (CarFacet facet : CarFacet.values()) {
+                    Map<String, Long> byValue = new HashMap<>();
+                    bitmaps.availableCounts.get(facet).forEach((key, count) -> {
+                        if (count > 0) {
+                            byValue.put(bitmaps.label(facet, key), (long) count);
+                        }
+                    });
+                    counts.put(facet, sortByCount(byValue));
+                }
+                total = bitmaps.available.getLongCardinality();
+            } else {
+                for (CarFacet facet : CarFacet.values()) {
+                    RoaringBitmap base = match(bitmaps, criteria.getAvailable(), filters, facet);
+                    Map<String, Long> byValue = new HashMap<>();
+                    for (Map.Entry<String, RoaringBitmap> value : bitmaps.values.get(facet).entrySet()) {
+                        // Cardinalité de l'intersection sans la matérialiser
+                        long count = RoaringBitmap.andCardinality(value.getValue(), base);
+                        if (count > 0) {
+                            byValue.put(bitmaps.label(facet, value.getKey()), count);
+                        }
+                    }
+                    counts.put(facet, sortByCount(byValue));
+                }
+                total = match(bitmaps, criteria.getAvailable(), filters, null).getLongCardinality();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return CarFacets.builder()
+                .total(total)
+                .counts(counts)
+                .build();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Price band label for a daily price, e.g. "50-100" or "500+"
+     */
+    public static String priceBand(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        int lower = 0;
+        for (int bound : PRICE_BAND_BOUNDS) {
+            if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+                return lower + "-" + bound;
+            }
+            lower = bound;
+        }
+        return lower + "+";
+    }
+
+    static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cars matching the availability flag and every attribute filter except the skipped facet.
+     * Without any condition this is the index's own bitmap, not a copy: callers only read the result
+     */
+    private static RoaringBitmap match(Bitmaps b, Boolean available, Map<CarFacet, Set<String>> filters,
+                                       CarFacet skip) {
+        RoaringBitmap result = null;
+        if (available != null) {
+            result = available ? b.available : RoaringBitmap.andNot(b.all, b.available);
+        }
+
+        for (Map.Entry<CarFacet, Set<String>> filter : filters.entrySet()) {
+            if (filter.getKey() == skip) {
+                continue;
+            }
+            Map<String, RoaringBitmap> byValue = b.values.get(filter.getKey());
+            List<RoaringBitmap> selected = new ArrayList<>(filter.getValue().size());
+            for (String value : filter.getValue()) {
+                RoaringBitmap bits = byValue.get(normalize(value));
+                if (bits != null) {
+                    selected.add(bits);
+                }
+            }
+            RoaringBitmap union = FastAggregation.or(selected.iterator());
+            result = result == null ? union : RoaringBitmap.and(result, union);
+        }
+        return result == null ? b.all : result;
+    }
+
+    private static Map<String, Long> sortByCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+
+    private static int position(Long carId) {
+        if (carId < 0 || carId > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Car id out of index range: " + carId);
+        }
+        return carId.intValue();
+    }
+
+    private static String keyOf(CarFacet facet, CarIndexRow row) {
+        return switch (facet) {
+            case CITY -> normalize(row.city());
+            case BRAND -> normalize(row.brand());
+            case TRANSMISSION -> normalize(row.transmission());
+            case FUEL_TYPE -> normalize(row.fuelType());
+            case SEATS -> row.seatingCapacity() != null && row.seatingCapacity() > 0
+                    ? String.valueOf(row.seatingCapacity()) : null;
+            case PRICE_BAND -> priceBand(row.pricePerDay());
+        };
+    }
+
+    /**
+     * Display form of a facet value as it was first indexed (keys are normalized)
+     */
+    private static String labelOf(CarFacet facet, CarIndexRow row) {
+        return switch (facet) {
+            case CITY -> row.city() == null ? null : row.city().trim();
+            case BRAND -> row.brand() == null ? null : row.brand().trim();
+            case TRANSMISSION -> row.transmission() == null ? null : row.transmission().trim();
+            case FUEL_TYPE -> row.fuelType() == null ? null : row.fuelType().trim();
+            default -> keyOf(facet, row);
+        };
+    }
+
+    /**
+     * Bitmaps per attribute value, plus the indexed rows needed to clear old bits on update.
+     * availableCounts holds the number of available cars per value, kept current on every change.
+     */
+    private static final class Bitmaps {
+        final Map<CarFacet, Map<String, RoaringBitmap>> values = new EnumMap<>(CarFacet.class);
+        final Map<CarFacet, Map<String, Integer>> availableCounts = new EnumMap<>(CarFacet.class);
+        final Map<CarFacet, Map<String, String>> labels = new EnumMap<>(CarFacet.class);
+        final RoaringBitmap all = new RoaringBitmap();
+        final RoaringBitmap available = new RoaringBitmap();
+        final Map<Long, CarIndexRow> docs = new HashMap<>();
+
+        Bitmaps() {
+            for (CarFacet facet : CarFacet.values()) {
+                values.put(facet, new HashMap<>());
+                availableCounts.put(facet, new HashMap<>());
+                labels.put(facet, new HashMap<>());
+            }
+        }
+
+        /**
+         * Switch dense ranges of ids to run containers once the index is fully built
+         */
+        void optimize() {
+            all.runOptimize();
+            available.runOptimize();
+            values.values().forEach(byValue -> byValue.values().forEach(RoaringBitmap::runOptimize));
+        }
+
+        long sizeInBytes() {
+            long bytes = all.getLongSizeInBytes() + available.getLongSizeInBytes();
+            for (Map<String, RoaringBitmap> byValue : values.values()) {
+                for (RoaringBitmap bits : byValue.values()) {
+                    bytes += bits.getLongSizeInBytes();
+                }
+            }
+            return bytes;
+        }
+
+        String label(CarFacet facet, String key) {
+            return labels.get(facet).getOrDefault(key, key);
+        }
+
+        void add(CarIndexRow row) {
+            remove(row.id());
+            int pos = position(row.id());
+            docs.put(row.id(), row);
+            all.add(pos);
+            boolean isAvailable = Boolean.TRUE.equals(row.isAvailable());
+            if (isAvailable) {
+                available.add(pos);
+            }
+            for (CarFacet facet : CarFacet.values()) {
+                String key = keyOf(facet, row);
+                if (key != null) {
+                    values.get(facet).computeIfAbsent(key, k -> new RoaringBitmap()).add(pos);
+                    labels.get(facet).putIfAbsent(key, labelOf(facet, row));
+                    if (isAvailable) {
+                        availableCounts.get(facet).merge(key, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        void remove(Long carId) {
+            CarIndexRow old = docs.remove(carId);
+            if (old == null) {
+                return;
+            }
+            int pos = position(carId);
+            all.remove(pos);
+            available.remove(pos);
+            boolean wasAvailable = Boolean.TRUE.equals(old.isAvailable());
+            for (CarFacet facet : CarFacet.values()) {
+                String key = keyOf(facet, old);
+                if (key == null) {
+                    continue;
+                }
+                if (wasAvailable) {
+                    availableCounts.get(facet).computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                }
+                Map<String, RoaringBitmap> byValue = values.get(facet);
+                RoaringBitmap bits = byValue.get(key);
+                if (bits != null) {
+                    bits.remove(pos);
+                    if (bits.isEmpty()) {
+                        byValue.remove(key);
+                    }
+                }
+            }
+        }
+    }
+}
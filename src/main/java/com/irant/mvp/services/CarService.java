@@ -1,18 +1,50 @@
 package com.irant.mvp.services;
 
+import com.irant.mvp.cache.SingleFlight;
+import com.irant.mvp.constants.CarSort;
+import com.irant.mvp.dto.CarCursor;
+import com.irant.mvp.dto.CarDetail;
+import com.irant.mvp.dto.CarFacets;
+import com.irant.mvp.dto.CarPage;
+import com.irant.mvp.dto.CarSearchCriteria;
+import com.irant.mvp.dto.CarSearchResult;
+import com.irant.mvp.dto.CarSummary;
+import com.irant.mvp.dto.CollectionVersion;
+import com.irant.mvp.dto.EntityVersion;
+import com.irant.mvp.events.CarChangedEvent;
+import com.irant.mvp.exceptions.CarVersionConflictException;
 import com.irant.mvp.models.Agency;
 import com.irant.mvp.models.Car;
 import com.irant.mvp.models.User;
 import com.irant.mvp.repositories.AgencyRepository;
 import com.irant.mvp.repositories.CarRepository;
 import com.irant.mvp.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -22,6 +54,47 @@ public class CarService {
     private final CarRepository carRepository;
     private final AgencyRepository agencyRepository;
     private final UserRepository userRepository;
+    private final CarSearchIndex carSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.cars.defaultPageSize:20}")
+    private int defaultPageSize;
+
+    @Value("${app.cars.maxPageSize:100}")
+    private int maxPageSize;
+
+    @Value("${app.cache.singleFlightTimeoutMs:2000}")
+    private long singleFlightTimeoutMs;
+
+    // Modifications faites sur les autres nœuds : prises en compte au plus tard après ce délai
+    @Value("${app.cars.catalogue.versionTtlMs:5000}")
+    private long availableVersionTtlMs;
+
+    @Value("${app.cars.catalogue.maxVersions:1000}")
+    private int maxAvailableVersions;
+
+    // Lectures concurrentes identiques fusionnées en un seul aller-retour base, hors transaction appelante
+    private TransactionTemplate readOnlyTransaction;
+    private SingleFlight<Long, CarDetail> carDetailLoads;
+    private SingleFlight<Long, Optional<EntityVersion>> carVersionLoads;
+    private SingleFlight<String, CollectionVersion> availableVersionLoads;
+
+    // Empreintes du catalogue par ville ("" pour toutes), vidées à chaque modification validée sur ce nœud
+    private final Map<String, CachedVersion> availableVersions = new ConcurrentHashMap<>();
+    private final AtomicLong availableVersionsGeneration = new AtomicLong();
+
+    private record CachedVersion(CollectionVersion version, long loadedAtNanos) {
+    }
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        carDetailLoads = new SingleFlight<>(singleFlightTimeoutMs, TimeUnit.MILLISECONDS);
+        carVersionLoads = new SingleFlight<>(singleFlightTimeoutMs, TimeUnit.MILLISECONDS);
+        availableVersionLoads = new SingleFlight<>(singleFlightTimeoutMs, TimeUnit.MILLISECONDS);
+    }
 
     public Car addCar(Car car, String userEmail) {
         log.info("Adding car for user: {}", userEmail);
@@ -36,91 +109,234 @@ public class CarService {
         
         // Assigner l'agence à la voiture
         car.setAgency(agency);
+        // La version est attribuée par Hibernate à l'insertion, jamais par le client
+        car.setVersion(null);
         
         // S'assurer que isAvailable n'est pas null
         if (car.getIsAvailable() == null) {
             car.setIsAvailable(true);
         }
         
-        return carRepository.save(car);
+        Car savedCar = carRepository.save(car);
+        eventPublisher.publishEvent(new CarChangedEvent(List.of(savedCar.getId())));
+        return savedCar;
     }
 
-    public List<Car> getAllAvailableCars() {
-        return carRepository.findByIsAvailableTrue();
+    /**
+     * Get one keyset page of available cars
+     * The cursor is the opaque token returned as nextCursor by the previous page
+     */
+    @Transactional(readOnly = true)
+    public CarPage<CarSummary> getAvailableCars(CarSort sort, String city, Integer size, String cursor) {
+        int pageSize = resolvePageSize(size);
+        String cityFilter = (city == null || city.isBlank()) ? null : city;
+        // Fetch one extra row to know whether another page exists
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+
+        List<CarSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = sort == CarSort.PRICE
+                    ? carRepository.findAvailableCheapestFirst(cityFilter, limit)
+                    : carRepository.findAvailableNewestFirst(cityFilter, limit);
+        } else {
+            CarCursor after = CarCursor.decode(cursor, sort);
+            rows = sort == CarSort.PRICE
+                    ? carRepository.findAvailableCheapestAfter(cityFilter, after.pricePerDay(), after.id(), limit)
+                    : carRepository.findAvailableNewestAfter(cityFilter, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<CarSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            CarSummary last = items.get(items.size() - 1);
+            nextCursor = CarCursor.after(sort, last.createdAt(), last.pricePerDay(), last.id()).encode();
+        }
+
+        return CarPage.<CarSummary>builder()
+                .items(List.copyOf(items))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Search cars through the in-memory bitmap index, then read the page's summaries in one query
+     */
+    @Transactional(readOnly = true)
+    public CarSearchResult<CarSummary> searchCars(CarSearchCriteria criteria, Integer page, Integer size) {
+        if (!carSearchIndex.isReady()) {
+            throw new IllegalStateException("Search index is not ready yet");
+        }
+        int pageSize = resolvePageSize(size);
+        int pageNumber = page == null ? 0 : Math.max(page, 0);
+
+        CarSearchIndex.SearchHits hits = carSearchIndex.search(criteria, pageNumber, pageSize);
+        Map<Long, CarSummary> carsById = hits.ids().isEmpty() ? Map.of()
+                : carRepository.findSummariesByIdIn(hits.ids()).stream()
+                .collect(Collectors.toMap(CarSummary::id, Function.identity()));
+
+        return CarSearchResult.<CarSummary>builder()
+                .total(hits.total())
+                .page(pageNumber)
+                .size(pageSize)
+                .items(hits.ids().stream().map(carsById::get).filter(Objects::nonNull).toList())
+                .build();
+    }
+
+    /**
+     * Facet counts (brand, fuel type, transmission, city, seats, price band) for a filter
+     */
+    public CarFacets getFacets(CarSearchCriteria criteria) {
+        if (!carSearchIndex.isReady()) {
+            throw new IllegalStateException("Search index is not ready yet");
+        }
+        return carSearchIndex.facets(criteria);
+    }
+
+    /**
+     * Version of a car's detail (the car or its agency changed), read without loading either
+     * Concurrent calls for the same car share one query
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<EntityVersion> getCarVersion(Long carId) {
+        return carVersionLoads.load(carId,
+                () -> readOnlyTransaction.execute(status -> carRepository.findVersionById(carId)));
+    }
+
+    /**
+     * Fingerprint of the available cars of a city (all cities when null)
+     * Served from memory: dropped when a car change commits on this node, reloaded after
+     * app.cars.catalogue.versionTtlMs for changes made on other nodes. Concurrent reloads of a city share one query
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CollectionVersion getAvailableCarsVersion(String city) {
+        String cityFilter = (city == null || city.isBlank()) ? null : city;
+        String key = cityFilter == null ? "" : cityFilter;
+        long now = System.nanoTime();
+        CachedVersion cached = availableVersions.get(key);
+        if (cached != null && now - cached.loadedAtNanos() < TimeUnit.MILLISECONDS.toNanos(availableVersionTtlMs)) {
+            return cached.version();
+        }
+
+        long generation = availableVersionsGeneration.get();
+        CollectionVersion version = availableVersionLoads.load(key,
+                () -> readOnlyTransaction.execute(status -> carRepository.findAvailableVersion(cityFilter)));
+        if (availableVersionsGeneration.get() == generation) {
+            if (availableVersions.size() >= maxAvailableVersions && !availableVersions.containsKey(key)) {
+                evictAvailableVersions(now);
+            }
+            CachedVersion loaded = new CachedVersion(version, now);
+            availableVersions.put(key, loaded);
+            // Une modification validée pendant le chargement : ne pas garder une empreinte antérieure
+            if (availableVersionsGeneration.get() != generation) {
+                availableVersions.remove(key, loaded);
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Fingerprint read straight from the database, bypassing the in-memory copy and request coalescing;
+     * used right after a change, when either could predate it
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersion readAvailableCarsVersion(String city) {
+        return carRepository.findAvailableVersion((city == null || city.isBlank()) ? null : city);
+    }
+
+    /**
+     * Drop the in-memory fingerprints once a car change is committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onCarsChanged(CarChangedEvent event) {
+        availableVersionsGeneration.incrementAndGet();
+        availableVersions.clear();
     }
 
     /**
      * Get car by ID
+     * Concurrent calls for the same car share one load; waiters get its result or its exception
      */
-    public Car getCarById(Long carId) {
-        Car car = carRepository.findById(carId)
-                .orElseThrow(() -> new IllegalArgumentException("Car not found"));
-        // Forcer le chargement de imageUrls pour éviter les erreurs de lazy loading
-        Hibernate.initialize(car.getImageUrls());
-        return car;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CarDetail getCarById(Long carId) {
+        return carDetailLoads.load(carId, () -> readOnlyTransaction.execute(status -> {
+            CarDetail car = carRepository.findDetailById(carId)
+                    .orElseThrow(() -> new IllegalArgumentException("Car not found"));
+            return car.withImageUrls(carRepository.findImageUrlsById(carId));
+        }));
     }
 
     /**
      * Update car - EPIC B3: Create update car API
+     * Ownership check and partial update run as one conditional UPDATE keyed on the user id;
+     * the car is read afterwards only to build the response.
+     * With an expected version the UPDATE is a compare-and-set: a concurrent change makes it fail with
+     * CarVersionConflictException instead of being overwritten
      */
-    public Car updateCar(Long carId, Car carUpdate, String userEmail) {
-        log.info("Updating car {} for user: {}", carId, userEmail);
-        
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        Agency userAgency = agencyRepository.findByUser(user)
-                .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
-        
+    public Car updateCar(Long carId, Car carUpdate, Long userId, Long expectedVersion) {
+        log.info("Updating car {} (version {}) for user: {}", carId, expectedVersion, userId);
+
+        int updated = carRepository.updateOwnedCar(carId, userId,
+                carUpdate.getBrand(), carUpdate.getModel(), carUpdate.getYear(), carUpdate.getPricePerDay(),
+                carUpdate.getTransmission(), carUpdate.getFuelType(), carUpdate.getSeatingCapacity(),
+                carUpdate.getColor(), carUpdate.getLicensePlate(), carUpdate.getRangeInMiles(),
+                carUpdate.getDescription(), carUpdate.getCity(), carUpdate.getIsAvailable(), expectedVersion,
+                LocalDateTime.now());
+        if (updated == 0) {
+            throw notUpdated(carId, userId);
+        }
+
         Car car = carRepository.findById(carId)
                 .orElseThrow(() -> new IllegalArgumentException("Car not found"));
-        
-        // Vérifier que la voiture appartient à l'agence de l'utilisateur
-        if (!car.getAgency().getId().equals(userAgency.getId())) {
-            throw new IllegalStateException("You don't own this car");
+        if (carUpdate.getImageUrls() != null) {
+            // Collection d'éléments : pas de mise à jour ensembliste possible, remplacée par l'entité
+            car.setImageUrls(carUpdate.getImageUrls());
         }
-        
-        // Mettre à jour les champs fournis
-        if (carUpdate.getBrand() != null) car.setBrand(carUpdate.getBrand());
-        if (carUpdate.getModel() != null) car.setModel(carUpdate.getModel());
-        if (carUpdate.getYear() > 0) car.setYear(carUpdate.getYear());
-        if (carUpdate.getPricePerDay() != null) car.setPricePerDay(carUpdate.getPricePerDay());
-        if (carUpdate.getTransmission() != null) car.setTransmission(carUpdate.getTransmission());
-        if (carUpdate.getFuelType() != null) car.setFuelType(carUpdate.getFuelType());
-        if (carUpdate.getSeatingCapacity() > 0) car.setSeatingCapacity(carUpdate.getSeatingCapacity());
-        if (carUpdate.getColor() != null) car.setColor(carUpdate.getColor());
-        if (carUpdate.getLicensePlate() != null) car.setLicensePlate(carUpdate.getLicensePlate());
-        if (carUpdate.getRangeInMiles() != null) car.setRangeInMiles(carUpdate.getRangeInMiles());
-        if (carUpdate.getDescription() != null) car.setDescription(carUpdate.getDescription());
-        if (carUpdate.getCity() != null) car.setCity(carUpdate.getCity());
-        if (carUpdate.getImageUrls() != null) car.setImageUrls(carUpdate.getImageUrls());
-        if (carUpdate.getIsAvailable() != null) car.setIsAvailable(carUpdate.getIsAvailable());
-        
-        return carRepository.save(car);
+        eventPublisher.publishEvent(new CarChangedEvent(List.of(carId)));
+        return car;
     }
 
     /**
      * Deactivate car - EPIC B3: Create deactivate car API
+     * Ownership check and update run as one conditional UPDATE keyed on the user id;
+     * with an expected version it is a compare-and-set, like updateCar
      */
-    public Car deactivateCar(Long carId, String userEmail) {
-        log.info("Deactivating car {} for user: {}", carId, userEmail);
-        
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        Agency userAgency = agencyRepository.findByUser(user)
-                .orElseThrow(() -> new IllegalStateException("User does not have an agency"));
-        
-        Car car = carRepository.findById(carId)
+    public Car deactivateCar(Long carId, Long userId, Long expectedVersion) {
+        log.info("Deactivating car {} (version {}) for user: {}", carId, expectedVersion, userId);
+
+        if (carRepository.deactivateOwnedCar(carId, userId, expectedVersion, LocalDateTime.now()) == 0) {
+            throw notUpdated(carId, userId);
+        }
+        eventPublisher.publishEvent(new CarChangedEvent(List.of(carId)));
+        return carRepository.findById(carId)
                 .orElseThrow(() -> new IllegalArgumentException("Car not found"));
-        
-        // Vérifier que la voiture appartient à l'agence de l'utilisateur
-        if (!car.getAgency().getId().equals(userAgency.getId())) {
-            throw new IllegalStateException("You don't own this car");
+    }
+
+    /**
+     * Current version of a car read straight from the database, bypassing request coalescing;
+     * used right after a write, when an in-flight read could predate it
+     */
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> readCarVersion(Long carId) {
+        return carRepository.findVersionById(carId);
+    }
+
+    /**
+     * Why a conditional update touched no row; only runs on the failure path
+     */
+    private RuntimeException notUpdated(Long carId, Long userId) {
+        if (!carRepository.existsById(carId)) {
+            return new IllegalArgumentException("Car not found");
         }
-        
-        car.setIsAvailable(false);
-        return carRepository.save(car);
+        if (!carRepository.existsByIdAndAgency_User_Id(carId, userId)) {
+            return new IllegalStateException("You don't own this car");
+        }
+        // Propriétaire et voiture existante : seule la version a pu faire échouer l'UPDATE
+        EntityVersion current = carRepository.findVersionById(carId)
+                .orElseThrow(() -> new IllegalArgumentException("Car not found"));
+        return new CarVersionConflictException("Car " + carId + " was modified concurrently", current);
     }
 
     /**
@@ -137,4 +353,24 @@ public class CarService {
         
         return carRepository.findByAgency(agency);
     }
+
+    /**
+     * Drop expired fingerprints; if still full, drop an arbitrary tenth
+     */
+    private void evictAvailableVersions(long now) {
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(availableVersionTtlMs);
+        availableVersions.values().removeIf(v -> now - v.loadedAtNanos() >= ttlNanos);
+        if (availableVersions.size() >= maxAvailableVersions) {
+            int excess = Math.max(1, maxAvailableVersions / 10);
+            Iterator<String> it = availableVersions.keySet().iterator();
+            while (excess-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private int resolvePageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+    }
 }
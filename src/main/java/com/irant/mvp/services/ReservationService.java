@@ -0,0 +1,283 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.HoldRef;
+import com.irant.mvp.dto.ReservationDto;
+import com.irant.mvp.dto.ReservationRequest;
+import com.irant.mvp.exceptions.ReservationConflictException;
+import com.irant.mvp.models.Renter;
+import com.irant.mvp.models.Reservation;
+import com.irant.mvp.repositories.CarRepository;
+import com.irant.mvp.repositories.RenterRepository;
+import com.irant.mvp.repositories.ReservationRepository;
+import com.irant.mvp.scheduling.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Date-range bookings of cars.
+ * Conflicts are rejected from the in-memory CarAvailabilityIndex under a per-car lock; the insert
+ * itself re-checks overlap in the database under a row lock on the car, so bookings stay exclusive
+ * even when several application nodes serve the same car.
+ * Checkout holds expire through an in-process timing wheel, released in batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationService {
+
+    // SQL Server caps a statement at 2100 parameters
+    private static final int RELEASE_CHUNK = 1000;
+    private static final long RELEASE_RETRY_MS = 5000;
+
+    private final ReservationRepository reservationRepository;
+    private final RenterRepository renterRepository;
+    private final CarRepository carRepository;
+    private final CarAvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reservations.holdTtlMs:600000}") // 10 minutes in milliseconds
+    private long holdTtlMs;
+
+    @Value("${app.reservations.holdWheelTickMs:250}")
+    private long holdWheelTickMs;
+
+    private HierarchicalTimingWheel holdExpiries;
+
+    @PostConstruct
+    void startHoldExpiries() {
+        holdExpiries = new HierarchicalTimingWheel(holdWheelTickMs, this::releaseExpiredHolds);
+        holdExpiries.start("reservation-hold-expiry");
+    }
+
+    @PreDestroy
+    void stopHoldExpiries() {
+        holdExpiries.stop();
+    }
+
+    /**
+     * Re-arm expiries of holds still pending in the database; release those that lapsed while down
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPendingHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<HoldRef> holds = reservationRepository.findPendingHolds(Reservation.Status.HELD);
+        List<Long> lapsed = new ArrayList<>();
+        for (HoldRef hold : holds) {
+            if (hold.expiresAt() == null || !hold.expiresAt().isAfter(now)) {
+                lapsed.add(hold.reservationId());
+            } else {
+                holdExpiries.schedule(hold.reservationId(), toEpochMs(hold.expiresAt()));
+            }
+        }
+        releaseExpiredHolds(lapsed);
+        log.info("Recovered {} pending holds, released {} lapsed", holds.size() - lapsed.size(), lapsed.size());
+    }
+
+    /**
+     * Book a car for [startDate, endDate)
+     */
+    public ReservationDto book(ReservationRequest request, Long userId) {
+        log.info("Booking car {} for user: {}", request.getCarId(), userId);
+        return reserve(request, userId, Reservation.Status.CONFIRMED, null);
+    }
+
+    /**
+     * Hold a car for [startDate, endDate) during checkout; the hold lapses after the configured TTL
+     */
+    public ReservationDto hold(ReservationRequest request, Long userId) {
+        log.info("Holding car {} for user: {}", request.getCarId(), userId);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(holdTtlMs));
+        ReservationDto reservation = reserve(request, userId, Reservation.Status.HELD, expiresAt);
+        holdExpiries.schedule(reservation.getId(), toEpochMs(expiresAt));
+        return reservation;
+    }
+
+    /**
+     * Turn a pending hold into a confirmed reservation
+     */
+    public ReservationDto confirm(Long reservationId, Long userId) {
+        log.info("Confirming hold {} for user: {}", reservationId, userId);
+
+        Reservation reservation = transactionTemplate.execute(status -> {
+            Reservation r = findOwned(reservationId, userId);
+            if (reservationRepository.confirmHold(reservationId, Reservation.Status.HELD,
+                    Reservation.Status.CONFIRMED, LocalDateTime.now()) == 0) {
+                throw new ReservationConflictException("Hold " + reservationId + " has expired or is no longer pending");
+            }
+            r.setStatus(Reservation.Status.CONFIRMED);
+            r.setExpiresAt(null);
+            return r;
+        });
+
+        holdExpiries.cancel(reservationId);
+        return mapToDto(reservation, reservation.getCar().getId());
+    }
+
+    /**
+     * Expire the given holds in one statement per chunk and free their dates
+     */
+    public void releaseExpiredHolds(List<Long> reservationIds) {
+        for (int from = 0; from < reservationIds.size(); from += RELEASE_CHUNK) {
+            List<Long> chunk = reservationIds.subList(from, Math.min(from + RELEASE_CHUNK, reservationIds.size()));
+            List<HoldRef> released;
+            try {
+                released = transactionTemplate.execute(status -> {
+                    List<HoldRef> holds = reservationRepository.findPendingHoldsByIdIn(chunk, Reservation.Status.HELD);
+                    if (!holds.isEmpty()) {
+                        reservationRepository.expireHolds(holds.stream().map(HoldRef::reservationId).toList(),
+                                Reservation.Status.HELD, Reservation.Status.EXPIRED, LocalDateTime.now());
+                    }
+                    return holds;
+                });
+            } catch (RuntimeException e) {
+                // Retry the whole chunk later rather than leaving the dates held until restart
+                log.error("Failed to release {} expired holds, retrying in {} ms", chunk.size(), RELEASE_RETRY_MS, e);
+                long retryAt = System.currentTimeMillis() + RELEASE_RETRY_MS;
+                chunk.forEach(id -> holdExpiries.schedule(id, retryAt));
+                continue;
+            }
+            released.forEach(hold -> availabilityIndex.release(hold.carId(), hold.reservationId()));
+            if (!released.isEmpty()) {
+                log.info("Released {} expired holds", released.size());
+            }
+        }
+    }
+
+    /**
+     * Insert a reservation with the given status once the car's dates are known to be free
+     */
+    private ReservationDto reserve(ReservationRequest request, Long userId, Reservation.Status status,
+                                   LocalDateTime expiresAt) {
+        validateDates(request.getStartDate(), request.getEndDate());
+
+        Renter renter = renterRepository.findByUserId(userId)
+                .orElseThrow(() -> new IllegalStateException("User does not have a renter profile"));
+
+        BigDecimal pricePerDay = carRepository.findBookablePrice(request.getCarId())
+                .orElseThrow(() -> new IllegalArgumentException("Car not found or not available"));
+        long days = ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate());
+
+        Reservation reservation = Reservation.builder()
+                .renter(renter)
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .status(status)
+                .totalPrice(pricePerDay.multiply(BigDecimal.valueOf(days)))
+                .expiresAt(expiresAt)
+                .build();
+
+        availabilityIndex.book(request.getCarId(), request.getStartDate(), request.getEndDate(),
+                () -> transactionTemplate.execute(tx -> insert(request.getCarId(), reservation)));
+
+        log.info("Reservation {} created for car {}", reservation.getId(), request.getCarId());
+        return mapToDto(reservation, request.getCarId());
+    }
+
+    /**
+     * Cancel one of the renter's reservations that still blocks its dates, and free them
+     */
+    public ReservationDto cancel(Long reservationId, Long userId) {
+        log.info("Cancelling reservation {} for user: {}", reservationId, userId);
+
+        ReservationDto cancelled = transactionTemplate.execute(status -> {
+            Reservation r = findOwned(reservationId, userId);
+            LocalDateTime now = LocalDateTime.now();
+            if (reservationRepository.cancelActive(reservationId, Reservation.Status.BLOCKING,
+                    Reservation.Status.CANCELLED, now.toLocalDate(), now) == 0) {
+                throw new ReservationConflictException("Reservation " + reservationId + " is no longer active");
+            }
+            // Écrit par l'UPDATE conditionnel : l'entité n'est pas modifiée, seule la réponse l'est
+            ReservationDto dto = mapToDto(r, r.getCar().getId());
+            dto.setStatus(Reservation.Status.CANCELLED.name());
+            dto.setExpiresAt(null);
+            return dto;
+        });
+
+        holdExpiries.cancel(reservationId);
+        availabilityIndex.release(cancelled.getCarId(), reservationId);
+        return cancelled;
+    }
+
+    /**
+     * Reservations of the current renter, most recent first
+     */
+    public List<ReservationDto> getMyReservations(Long userId) {
+        Renter renter = renterRepository.findByUserId(userId)
+                .orElseThrow(() -> new IllegalStateException("User does not have a renter profile"));
+        return transactionTemplate.execute(status -> reservationRepository.findByRenter_IdOrderByStartDateDesc(renter.getId())
+                .stream()
+                .map(r -> mapToDto(r, r.getCar().getId()))
+                .toList());
+    }
+
+    /**
+     * Insert the reservation under a row lock on the car, re-checking overlap in the database
+     */
+    private long insert(Long carId, Reservation reservation) {
+        carRepository.lockForBooking(carId)
+                .orElseThrow(() -> new IllegalArgumentException("Car not found"));
+
+        if (reservationRepository.existsOverlapping(carId, reservation.getStartDate(), reservation.getEndDate(),
+                Reservation.Status.BLOCKING, LocalDateTime.now())) {
+            throw new ReservationConflictException("Car " + carId + " is already booked for the requested dates");
+        }
+
+        reservation.setCar(carRepository.getReferenceById(carId));
+        return reservationRepository.save(reservation).getId();
+    }
+
+    private Reservation findOwned(Long reservationId, Long userId) {
+        Reservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new IllegalArgumentException("Reservation not found"));
+        if (!reservation.getRenter().getUser().getId().equals(userId)) {
+            throw new IllegalStateException("You don't own this reservation");
+        }
+        return reservation;
+    }
+
+    private static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void validateDates(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Start and end dates are required");
+        }
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Start date cannot be in the past");
+        }
+    }
+
+    private ReservationDto mapToDto(Reservation reservation, Long carId) {
+        return ReservationDto.builder()
+                .id(reservation.getId())
+                .carId(carId)
+                .renterId(reservation.getRenter().getId())
+                .startDate(reservation.getStartDate())
+                .endDate(reservation.getEndDate())
+                .status(reservation.getStatus().name())
+                .totalPrice(reservation.getTotalPrice())
+                .expiresAt(reservation.getExpiresAt())
+                .createdAt(reservation.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.models.Role;
+import com.irant.mvp.repositories.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The roles table is static reference data seeded by V1__Initial_Schema.sql, so it is read once at startup.
+ * Registration attaches these instances to new users directly: Hibernate only needs their id to write
+ * the user_roles rows, so no role lookup runs per request. The instances are shared and must not be modified.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private Map<Role.RoleName, Role> roles;
+
+    @PostConstruct
+    void load() {
+        Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+        for (Role role : roleRepository.findAll()) {
+            loaded.put(role.getName(), role);
+        }
+        for (Role.RoleName name : Role.RoleName.values()) {
+            if (!loaded.containsKey(name)) {
+                throw new NoSuchElementException("System Error: " + name + " not initialized in DB");
+            }
+        }
+        roles = Collections.unmodifiableMap(loaded);
+        log.info("Role registry loaded with {} roles", roles.size());
+    }
+
+    public Role get(Role.RoleName name) {
+        return roles.get(name);
+    }
+
+    public Long idOf(Role.RoleName name) {
+        return roles.get(name).getId();
+    }
+}
@@ -0,0 +1,153 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.cache.BloomFilter;
+import com.irant.mvp.dto.UserContactRow;
+import com.irant.mvp.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters over the registered emails and phone numbers.
+ * A "definitely free" answer needs no database round trip; a "maybe taken" answer must be confirmed
+ * against the database, which remains the source of truth (and whose unique constraints still guard inserts).
+ * The filters are built from the users table once the application is ready, updated on each registration,
+ * and rebuilt periodically to pick up accounts created on other nodes and drop deleted ones.
+ * Until the first build completes, nothing is reported as definitely free.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserAvailabilityIndex {
+
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.auth.availability.expectedUsers:1000000}")
+    private long expectedUsers;
+
+    @Value("${app.auth.availability.falsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    private final Object swapLock = new Object();
+
+    // null tant que le premier chargement n'est pas terminé
+    private volatile Filters current;
+    // Filtres en cours de reconstruction : les inscriptions concurrentes y sont aussi ajoutées
+    private Filters building;
+
+    private record Filters(BloomFilter emails, BloomFilter phones) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.auth.availability.rebuildIntervalMs:3600000}",
+            fixedDelayString = "${app.auth.availability.rebuildIntervalMs:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild both filters from the users table, then swap them in
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        Filters next = new Filters(new BloomFilter(expectedUsers, falsePositiveRate),
+                new BloomFilter(expectedUsers, falsePositiveRate));
+        synchronized (swapLock) {
+            building = next;
+        }
+
+        long count;
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            count = readOnly.execute(status -> {
+                long rows = 0;
+                try (Stream<UserContactRow> stream = userRepository.streamContactRows()) {
+                    for (UserContactRow row : (Iterable<UserContactRow>) stream::iterator) {
+                        add(next, row.email(), row.phoneNumber());
+                        rows++;
+                    }
+                }
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            synchronized (swapLock) {
+                building = null;
+            }
+            log.error("Availability filters rebuild failed, keeping the previous ones", e);
+            return;
+        }
+
+        synchronized (swapLock) {
+            current = next;
+            building = null;
+        }
+        if (count > expectedUsers) {
+            log.warn("{} users exceed the {} the availability filters are sized for; false positives will rise",
+                    count, expectedUsers);
+        }
+        log.info("Availability filters built from {} users in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Record a newly registered account so it is never reported as free
+     */
+    public void recordRegistered(String email, String phoneNumber) {
+        synchronized (swapLock) {
+            if (current != null) {
+                add(current, email, phoneNumber);
+            }
+            if (building != null) {
+                add(building, email, phoneNumber);
+            }
+        }
+    }
+
+    /**
+     * True only when no account can have this email; false means "maybe taken", ask the database
+     */
+    public boolean isEmailDefinitelyFree(String email) {
+        Filters filters = current;
+        return filters != null && email != null && !filters.emails().mightContain(normalizeEmail(email));
+    }
+
+    /**
+     * True only when no account can have this phone number; false means "maybe taken", ask the database
+     */
+    public boolean isPhoneNumberDefinitelyFree(String phoneNumber) {
+        Filters filters = current;
+        return filters != null && phoneNumber != null && !filters.phones().mightContain(phoneNumber.trim());
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    private static void add(Filters filters, String email, String phoneNumber) {
+        if (email != null) {
+            filters.emails().put(normalizeEmail(email));
+        }
+        if (phoneNumber != null) {
+            filters.phones().put(phoneNumber.trim());
+        }
+    }
+
+    // Collation insensible à la casse côté SQL Server
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,3 @@
+-- Per-user security version embedded in access tokens
+-- Bumped whenever roles change or the account is deactivated so stateless tokens can be rejected
+ALTER TABLE users ADD security_version BIGINT NOT NULL CONSTRAINT df_users_security_version DEFAULT 0;
@@ -0,0 +1,4 @@
+-- Composite indexes backing keyset pagination of /api/cars/available
+-- Each index matches one sort order: (created_at, id) newest first, (price_per_day, id) cheapest first
+CREATE INDEX idx_cars_available_created ON cars (is_available, created_at DESC, id DESC);
+CREATE INDEX idx_cars_available_price ON cars (is_available, price_per_day, id);
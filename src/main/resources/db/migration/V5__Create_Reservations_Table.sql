@@ -0,0 +1,19 @@
+-- Create reservations table
+-- Date ranges are half-open: a car returned on end_date can be picked up again that same day
+CREATE TABLE reservations (
+    id BIGINT PRIMARY KEY IDENTITY(1,1),
+    car_id BIGINT NOT NULL,
+    renter_id BIGINT NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total_price DECIMAL(10,2),
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    updated_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    CONSTRAINT fk_reservations_car FOREIGN KEY (car_id) REFERENCES cars(id) ON DELETE CASCADE,
+    -- No cascade here: users already cascade to cars through agency
+    CONSTRAINT fk_reservations_renter FOREIGN KEY (renter_id) REFERENCES renters(id),
+    CONSTRAINT ck_reservations_dates CHECK (end_date > start_date),
+    INDEX idx_reservations_car_dates (car_id, status, start_date, end_date),
+    INDEX idx_reservations_renter (renter_id)
+);
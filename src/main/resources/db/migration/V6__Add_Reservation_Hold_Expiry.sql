@@ -0,0 +1,4 @@
+-- Short-lived checkout holds: a HELD reservation blocks its dates until expires_at
+ALTER TABLE reservations ADD expires_at DATETIME2 NULL;
+
+CREATE INDEX idx_reservations_status_expires ON reservations (status, expires_at);
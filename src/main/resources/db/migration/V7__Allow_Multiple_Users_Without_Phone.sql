@@ -0,0 +1,18 @@
+-- A SQL Server UNIQUE constraint admits a single NULL, so only one user could ever register without
+-- a phone number. Replace it with a unique index filtered on non-null values.
+DECLARE @constraint NVARCHAR(128);
+DECLARE @sql NVARCHAR(400);
+
+SELECT @constraint = kc.name
+FROM sys.key_constraints kc
+JOIN sys.index_columns ic ON ic.object_id = kc.parent_object_id AND ic.index_id = kc.unique_index_id
+JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id
+WHERE kc.parent_object_id = OBJECT_ID('users') AND kc.type = 'UQ' AND c.name = 'phone_number';
+
+IF @constraint IS NOT NULL
+BEGIN
+    SET @sql = N'ALTER TABLE users DROP CONSTRAINT ' + QUOTENAME(@constraint);
+    EXEC sp_executesql @sql;
+END;
+
+CREATE UNIQUE INDEX ux_users_phone_number ON users (phone_number) WHERE phone_number IS NOT NULL;
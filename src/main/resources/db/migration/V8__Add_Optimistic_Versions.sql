@@ -0,0 +1,4 @@
+-- Optimistic locking: every update of a car or an agency increments its version,
+-- and version-checked updates only apply when the version is still the one the client read
+ALTER TABLE cars ADD version BIGINT NOT NULL CONSTRAINT df_cars_version DEFAULT 0;
+ALTER TABLE agency ADD version BIGINT NOT NULL CONSTRAINT df_agency_version DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Backs max(updated_at) in the available-cars fingerprint (ETag of /api/cars/available):
+-- one index seek instead of a scan of the whole cars table
+CREATE INDEX idx_cars_updated_at ON cars (updated_at);
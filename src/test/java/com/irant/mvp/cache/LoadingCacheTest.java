@@ -0,0 +1,26 @@
+package com.irant.mvp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Failed loads, including Errors, are not cached and do not leave the key stuck loading
+ */
+class LoadingCacheTest {
+
+    @Test
+    void errorFromLoaderReleasesTheKey() {
+        LoadingCache<String, String> cache = new LoadingCache<>(10, 1, TimeUnit.MINUTES);
+
+        assertThatThrownBy(() -> cache.get("user@example.com", key -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        assertThat(cache.get("user@example.com", key -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.stats().loadFailures()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.irant.mvp.cache;
+
+import com.irant.mvp.exceptions.CoalescedLoadTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Coalescing of concurrent loads on virtual threads, error fan-out and waiter timeouts
+ */
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(5, TimeUnit.SECONDS);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 200;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> flight.load(7L, () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "car-7";
+                })));
+            }
+            // Laisser tous les appelants rejoindre le chargement en cours avant de le libérer
+            while (flight.getLoads() + flight.getCoalesced() < callers) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("car-7");
+            }
+        }
+
+        assertThat(executions).hasValue(1);
+        assertThat(flight.getCoalesced()).isEqualTo(callers - 1);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void waitersReceiveTheLoaderException() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(5, TimeUnit.SECONDS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flight.load(1L, () -> {
+                await(release);
+                throw new IllegalArgumentException("Car not found");
+            }));
+            while (flight.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            Future<String> waiter = executor.submit(() -> flight.load(1L, () -> "unused"));
+            while (flight.getCoalesced() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : List.of(leader, waiter)) {
+                assertThatThrownBy(result::get)
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCauseInstanceOf(IllegalArgumentException.class);
+            }
+        }
+
+        // Pas de cache : l'appel suivant recharge
+        assertThat(flight.load(1L, () -> "found")).isEqualTo("found");
+    }
+
+    @Test
+    void waiterTimesOutWhileTheLoadIsStillRunning() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(50, TimeUnit.MILLISECONDS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flight.load(3L, () -> {
+                await(release);
+                return "slow";
+            }));
+            while (flight.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+
+            assertThatThrownBy(() -> flight.load(3L, () -> "unused"))
+                    .isInstanceOf(CoalescedLoadTimeoutException.class);
+            assertThat(flight.getTimeouts()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(leader.get()).isEqualTo("slow");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.irant.mvp.metrics;
+
+import com.irant.mvp.exceptions.SqlBudgetExceededException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statement and row counting through the wrapped DataSource, N+1 detection and per-endpoint budgets
+ */
+class StatementCountingDataSourceTest {
+
+    private static final String SELECT_CAR = "select c.id, c.brand from cars c where c.id = ?";
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, true, false);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.executeQuery()).thenReturn(resultSet);
+        Statement plain = mock(Statement.class);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(prepared);
+        when(connection.createStatement()).thenReturn(plain);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new StatementCountingDataSource(target);
+    }
+
+    private void selectCar(long id) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CAR)) {
+            statement.setLong(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Filter chain standing in for a controller that loads cars one by one
+     */
+    private MockFilterChain chainSelectingCars(int count) {
+        return new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                try {
+                    for (long id = 1; id <= count; id++) {
+                        selectCar(id);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    @Test
+    void countsStatementsAndRowsInNestedScopes() throws SQLException {
+        try (SqlStatementScope outer = SqlStatementScope.open("outer")) {
+            selectCar(1);
+            try (SqlStatementScope inner = SqlStatementScope.open("inner")) {
+                try (Connection connection = dataSource.getConnection()) {
+                    connection.createStatement().executeUpdate("update cars set price_per_day = 10 where id = 7");
+                }
+                assertThat(inner.getStatementCount()).isEqualTo(1);
+                assertThat(inner.getRowCount()).isZero();
+            }
+            assertThat(outer.getStatementCount()).isEqualTo(2);
+            assertThat(outer.getRowCount()).isEqualTo(2);
+            assertThat(outer.getStatementsByShape())
+                    .containsEntry("update cars set price_per_day = ? where id = ?", 1);
+        }
+        assertThat(SqlStatementScope.isActive()).isFalse();
+    }
+
+    @Test
+    void ignoresStatementsOutsideAnyScope() throws SQLException {
+        selectCar(1);
+
+        try (SqlStatementScope scope = SqlStatementScope.open("empty")) {
+            assertThat(scope.getStatementCount()).isZero();
+        }
+    }
+
+    @Test
+    void collapsesLiteralsAndInListsIntoOneShape() {
+        assertThat(SqlStatementScope.shapeOf("select * from cars where id in (?, ?, ?) and city = 'Tunis'"))
+                .isEqualTo(SqlStatementScope.shapeOf("select *  from cars where id in (?,?) and city = 'Sfax'"));
+    }
+
+    @Test
+    void failModeRejectsRepeatedStatementShapes() {
+        SqlBudgetFilter filter = new SqlBudgetFilter(20, "", 3, true);
+
+        assertThatThrownBy(() -> filter.doFilter(request("/api/cars/agency"), new MockHttpServletResponse(),
+                chainSelectingCars(3)))
+                .isInstanceOf(SqlBudgetExceededException.class)
+                .hasMessageContaining("GET /api/cars/agency")
+                .hasMessageContaining("3x " + SELECT_CAR);
+    }
+
+    @Test
+    void endpointBudgetIsEnforcedPerMappingPattern() throws Exception {
+        SqlBudgetFilter filter = new SqlBudgetFilter(20, "GET /api/cars/available=2", 0, true);
+
+        MockHttpServletRequest withinBudget = request("/api/cars/available");
+        filter.doFilter(withinBudget, new MockHttpServletResponse(), chainSelectingCars(2));
+        SqlStatementScope scope = (SqlStatementScope) withinBudget.getAttribute(SqlBudgetFilter.SCOPE_ATTRIBUTE);
+        assertThat(scope.getStatementCount()).isEqualTo(2);
+
+        assertThatThrownBy(() -> filter.doFilter(request("/api/cars/available"), new MockHttpServletResponse(),
+                chainSelectingCars(3)))
+                .isInstanceOf(SqlBudgetExceededException.class)
+                .hasMessageContaining("3 statements (budget 2)");
+    }
+}
@@ -0,0 +1,132 @@
+package com.irant.mvp.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wheel driven tick by tick through advanceTo: level boundaries, the top-level horizon, reschedule,
+ * cancel and deadlines already due
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 100;
+    private static final long START_MS = 1_000_000;
+    private static final long TOP_HORIZON = 1L << 24; // 64^4 ticks
+
+    private final List<List<Long>> handled = new ArrayList<>();
+    private final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK_MS, START_MS, handled::add);
+
+    private void scheduleAtTick(long id, long tick) {
+        wheel.schedule(id, START_MS + tick * TICK_MS);
+    }
+
+    /**
+     * Advance one tick at a time up to the target, recording the tick each id fired at
+     */
+    private void advance(long fromTick, long toTick, Map<Long, Long> firedAt) {
+        for (long tick = fromTick + 1; tick <= toTick; tick++) {
+            for (Long id : wheel.advanceTo(tick)) {
+                assertThat(firedAt.put(id, tick)).as("id %d fired twice", id).isNull();
+            }
+        }
+    }
+
+    @Test
+    void firesEveryDeadlineOnceAtItsTickAcrossLevels() {
+        long[] deadlines = {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 262_143, 262_144, 262_145,
+                TOP_HORIZON - 1, TOP_HORIZON, TOP_HORIZON + 1, 2 * TOP_HORIZON + 12_345};
+        for (int i = 0; i < deadlines.length; i++) {
+            scheduleAtTick(i, deadlines[i]);
+        }
+        assertThat(wheel.size()).isEqualTo(deadlines.length);
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        advance(0, deadlines[deadlines.length - 1] + 64, firedAt);
+
+        assertThat(firedAt).hasSize(deadlines.length);
+        for (int i = 0; i < deadlines.length; i++) {
+            assertThat(firedAt.get((long) i)).as("deadline %d", deadlines[i]).isEqualTo(deadlines[i]);
+        }
+        assertThat(wheel.size()).isZero();
+        assertThat(handled).isEmpty();
+    }
+
+    @Test
+    void deadlinesScheduledMidWayAreMeasuredFromTheCurrentTick() {
+        Map<Long, Long> firedAt = new HashMap<>();
+        advance(0, 4000, firedAt);
+        // Mêmes écarts que les frontières de niveaux, mais depuis un tick non aligné
+        long[] offsets = {1, 63, 64, 96, 4095, 4096, 262_144};
+        for (int i = 0; i < offsets.length; i++) {
+            scheduleAtTick(i, 4000 + offsets[i]);
+        }
+
+        advance(4000, 4000 + 262_144 + 64, firedAt);
+
+        for (int i = 0; i < offsets.length; i++) {
+            assertThat(firedAt.get((long) i)).as("offset %d", offsets[i]).isEqualTo(4000 + offsets[i]);
+        }
+    }
+
+    @Test
+    void cancelledIdsNeverFire() {
+        scheduleAtTick(1, 10);
+        scheduleAtTick(2, 5_000);
+        scheduleAtTick(3, 300_000);
+        scheduleAtTick(4, 5_000);
+        Map<Long, Long> firedAt = new HashMap<>();
+        advance(0, 50, firedAt);
+
+        assertThat(wheel.cancel(2)).isTrue();
+        assertThat(wheel.cancel(3)).isTrue();
+        assertThat(wheel.cancel(2)).isFalse();
+        // Déjà expiré : plus rien à annuler
+        assertThat(wheel.cancel(1)).isFalse();
+        advance(50, 300_064, firedAt);
+
+        assertThat(firedAt).containsOnlyKeys(1L, 4L);
+        assertThat(firedAt.get(4L)).isEqualTo(5_000);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleMovesTheDeadlineAndFiresOnce() {
+        scheduleAtTick(7, 10);
+        scheduleAtTick(7, 200);
+        scheduleAtTick(8, 5_000);
+        Map<Long, Long> firedAt = new HashMap<>();
+        advance(0, 100, firedAt);
+        scheduleAtTick(8, 150);
+
+        advance(100, 5_100, firedAt);
+
+        assertThat(firedAt).containsEntry(7L, 200L).containsEntry(8L, 150L).hasSize(2);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void alreadyDueDeadlineIsHandledOnTheCallersThread() {
+        Thread caller = Thread.currentThread();
+        List<Thread> handlerThreads = new ArrayList<>();
+        HierarchicalTimingWheel dueWheel = new HierarchicalTimingWheel(TICK_MS, START_MS, ids -> {
+            handled.add(ids);
+            handlerThreads.add(Thread.currentThread());
+        });
+        dueWheel.advanceTo(10);
+        dueWheel.schedule(5, START_MS + 20 * TICK_MS);
+
+        dueWheel.schedule(5, START_MS + 3 * TICK_MS);
+        dueWheel.schedule(6, START_MS + 10 * TICK_MS);
+
+        assertThat(handled).containsExactly(List.of(5L), List.of(6L));
+        assertThat(handlerThreads).containsOnly(caller);
+        assertThat(dueWheel.size()).isZero();
+        assertThat(dueWheel.advanceTo(100)).isEmpty();
+    }
+}
@@ -0,0 +1,149 @@
+package com.irant.mvp.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 429 with Retry-After per IP and per email, and replay of the body read by the filter
+ */
+class AuthRateLimitFilterTest {
+
+    private static final String BODY = "{\"password\":\"secret\",\"email\":\" Renter@Example.com \"}";
+
+    private static MockHttpServletRequest login(String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * Chain standing in for the controller: records the body it reads
+     */
+    private static final class RecordingChain extends MockFilterChain {
+        private final List<String> bodies = new ArrayList<>();
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            ServletInputStream in = request.getInputStream();
+            bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            request.getInputStream().setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() {
+                    events.add("data");
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        }
+    }
+
+    @Test
+    void replaysTheBodyToTheController() throws Exception {
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(new KeyedRateLimiter(60, 10, 100),
+                new KeyedRateLimiter(60, 10, 100), new KeyedRateLimiter(60, 10, 100));
+        RecordingChain chain = new RecordingChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(login("10.0.0.1", BODY), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.bodies).containsExactly(BODY);
+        assertThat(chain.events).containsExactly("data", "done");
+    }
+
+    @Test
+    void rejectsTheSameEmailFromAnotherIpWithRetryAfter() throws Exception {
+        // 1/min, rafale de 1 : la seconde tentative doit attendre une minute
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(new KeyedRateLimiter(60, 10, 100),
+                new KeyedRateLimiter(1, 1, 100), new KeyedRateLimiter(60, 10, 100));
+        RecordingChain chain = new RecordingChain();
+
+        filter.doFilter(login("10.0.0.1", BODY), new MockHttpServletResponse(), chain);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(login("10.0.0.2", "{\"email\":\"renter@example.com\"}"), rejected, chain);
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("60");
+        assertThat(chain.bodies).hasSize(1);
+    }
+
+    @Test
+    void rejectsAnIpOverItsBudgetBeforeReadingTheBody() throws Exception {
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(new KeyedRateLimiter(2, 1, 100),
+                new KeyedRateLimiter(60, 10, 100), new KeyedRateLimiter(60, 10, 100));
+        RecordingChain chain = new RecordingChain();
+
+        filter.doFilter(login("10.0.0.1", BODY), new MockHttpServletResponse(), chain);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(login("10.0.0.1", "{\"email\":\"other@example.com\"}"), rejected, chain);
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+    }
+
+    @Test
+    void forwardedClientsBehindTheGatewayGetSeparateBuckets() throws Exception {
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(new KeyedRateLimiter(1, 1, 100),
+                new KeyedRateLimiter(60, 10, 100), new KeyedRateLimiter(60, 10, 100), List.of("10.0.0.0/8"));
+        RecordingChain chain = new RecordingChain();
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(forwarded("203.0.113.7", "{\"email\":\"a@example.com\"}"), first, chain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(forwarded("198.51.100.23", "{\"email\":\"b@example.com\"}"), second, chain);
+        MockHttpServletResponse repeat = new MockHttpServletResponse();
+        filter.doFilter(forwarded("203.0.113.7", "{\"email\":\"c@example.com\"}"), repeat, chain);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(repeat.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void forwardedEntriesSetByTheClientAreIgnored() throws Exception {
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(new KeyedRateLimiter(1, 1, 100),
+                new KeyedRateLimiter(60, 10, 100), new KeyedRateLimiter(60, 10, 100), List.of("10.0.0.0/8"));
+        RecordingChain chain = new RecordingChain();
+
+        // Pair direct, pas un proxy de confiance : l'en-tête n'est pas lu
+        MockHttpServletRequest direct = login("203.0.113.7", BODY);
+        direct.addHeader("X-Forwarded-For", "198.51.100.1");
+        filter.doFilter(direct, new MockHttpServletResponse(), chain);
+        // Via la passerelle, l'entrée forgée à gauche de celle ajoutée par la passerelle ne compte pas
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(forwarded("198.51.100.2, 203.0.113.7", BODY), rejected, chain);
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+    }
+
+    private static MockHttpServletRequest forwarded(String clientIp, String body) {
+        MockHttpServletRequest request = login("10.1.2.3", body);
+        request.addHeader("X-Forwarded-For", clientIp);
+        return request;
+    }
+}
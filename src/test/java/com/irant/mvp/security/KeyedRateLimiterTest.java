@@ -0,0 +1,61 @@
+package com.irant.mvp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GCRA maths on a controlled clock: burst size, wait returned on rejection and steady refill
+ */
+class KeyedRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void allowsTheBurstBackToBackThenReturnsTheWait() {
+        // 60/min : un jeton par seconde, rafale de 3
+        KeyedRateLimiter limiter = new KeyedRateLimiter(60, 3, 100, clock::get);
+
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isEqualTo(SECOND);
+
+        clock.addAndGet(SECOND / 4);
+        assertThat(limiter.tryAcquire("1.2.3.4")).isEqualTo(3 * SECOND / 4);
+        assertThat(limiter.getAllowed()).isEqualTo(3);
+        assertThat(limiter.getRejected()).isEqualTo(2);
+    }
+
+    @Test
+    void refillsOnePermitPerEmissionInterval() {
+        KeyedRateLimiter limiter = new KeyedRateLimiter(60, 2, 100, clock::get);
+        limiter.tryAcquire("user@example.com");
+        limiter.tryAcquire("user@example.com");
+        assertThat(limiter.tryAcquire("user@example.com")).isPositive();
+
+        clock.addAndGet(SECOND);
+        assertThat(limiter.tryAcquire("user@example.com")).isZero();
+        assertThat(limiter.tryAcquire("user@example.com")).isPositive();
+
+        // Seau plein après une rafale entière de repos, jamais au-delà
+        clock.addAndGet(10 * SECOND);
+        assertThat(limiter.tryAcquire("user@example.com")).isZero();
+        assertThat(limiter.tryAcquire("user@example.com")).isZero();
+        assertThat(limiter.tryAcquire("user@example.com")).isPositive();
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        KeyedRateLimiter limiter = new KeyedRateLimiter(60, 1, 100, clock::get);
+
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+    }
+}
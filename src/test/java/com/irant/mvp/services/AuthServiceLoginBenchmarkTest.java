@@ -0,0 +1,164 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.LoginRequest;
+import com.irant.mvp.dto.LoginResponse;
+import com.irant.mvp.models.Role;
+import com.irant.mvp.models.User;
+import com.irant.mvp.repositories.RenterRepository;
+import com.irant.mvp.repositories.UserRepository;
+import com.irant.mvp.repositories.VehicleOwnerRepository;
+import com.irant.mvp.security.JwtTokenProvider;
+import com.irant.mvp.security.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Login pipeline: one principal load per login, no user repository round trip, plus a throughput figure
+ * (tagged benchmark, not part of the default run).
+ * BCrypt runs at its minimum cost so the numbers reflect the pipeline rather than hashing.
+ */
+class AuthServiceLoginBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthServiceLoginBenchmarkTest.class);
+
+    private static final String EMAIL = "renter@irent.test";
+    private static final String PASSWORD = "correct-horse-battery";
+
+    private AuthService authService;
+    private JwtTokenProvider tokenProvider;
+    private UserRepository userRepository;
+    private final AtomicLong principalLoads = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        User user = User.builder()
+                .id(42L)
+                .email(EMAIL)
+                .password(encoder.encode(PASSWORD))
+                .firstName("Ada")
+                .lastName("Lovelace")
+                .accountActive(true)
+                .securityVersion(3L)
+                .roles(Set.of(new Role(Role.RoleName.ROLE_RENTER)))
+                .build();
+        UserPrincipal principal = UserPrincipal.create(user);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(username -> {
+            principalLoads.incrementAndGet();
+            if (!EMAIL.equals(username)) {
+                throw new UsernameNotFoundException(username);
+            }
+            return principal;
+        });
+        provider.setPasswordEncoder(encoder);
+
+        tokenProvider = new JwtTokenProvider(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "benchmark-secret-key-that-is-long-enough-for-hmac-sha-512-signatures!!");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheMaxSize", 10_000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheTtlMs", 300_000L);
+        ReflectionTestUtils.invokeMethod(tokenProvider, "init");
+
+        userRepository = mock(UserRepository.class);
+        authService = new AuthService(userRepository, mock(RoleRegistry.class), mock(RenterRepository.class),
+                mock(VehicleOwnerRepository.class), encoder, new ProviderManager(provider), tokenProvider,
+                mock(ApplicationEventPublisher.class), mock(UserAvailabilityIndex.class));
+    }
+
+    private static LoginRequest request(String password) {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(EMAIL);
+        request.setPassword(password);
+        return request;
+    }
+
+    @Test
+    void loginBuildsResponseFromAuthenticatedPrincipal() {
+        LoginResponse response = authService.loginUser(request(PASSWORD));
+
+        assertThat(response.getUserId()).isEqualTo(42L);
+        assertThat(response.getEmail()).isEqualTo(EMAIL);
+        assertThat(response.getFullName()).isEqualTo("Ada Lovelace");
+        assertThat(response.getRoles()).containsExactly("ROLE_RENTER");
+        assertThat(tokenProvider.verifyToken(response.getToken()))
+                .hasValueSatisfying(token -> assertThat(token.getSecurityVersion()).isEqualTo(3L));
+
+        assertThat(principalLoads).hasValue(1);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void rejectsWrongPasswordWithoutFurtherLookups() {
+        assertThatThrownBy(() -> authService.loginUser(request("wrong-password")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(principalLoads).hasValue(1);
+        verifyNoInteractions(userRepository);
+    }
+
+    /**
+     * Excluded from the default build; run with mvn test -Dtest.excludedGroups= -Dgroups=benchmark
+     */
+    @Test
+    @Tag("benchmark")
+    void loginThroughput() throws Exception {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int loginsPerThread = 500;
+
+        for (int i = 0; i < 200; i++) {
+            authService.loginUser(request(PASSWORD)); // warm-up
+        }
+        principalLoads.set(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < loginsPerThread; i++) {
+                        authService.loginUser(request(PASSWORD));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long logins = (long) threads * loginsPerThread;
+        log.info("Login throughput: {} logins on {} threads in {} s ({} logins/s)",
+                logins, threads, String.format("%.2f", seconds), String.format("%.0f", logins / seconds));
+
+        // Exactly one principal load per login and never a repository round trip
+        assertThat(principalLoads).hasValue(logins);
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,158 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.BookedInterval;
+import com.irant.mvp.exceptions.ReservationConflictException;
+import com.irant.mvp.repositories.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CarAvailabilityIndexTest {
+
+    private static final LocalDate DAY_ZERO = LocalDate.now().plusDays(1);
+
+    private CarAvailabilityIndex index;
+    private final AtomicLong ids = new AtomicLong();
+    // Stands in for the reservations table the index reloads timelines from
+    private final Map<Long, Queue<BookedInterval>> table = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReservationRepository repository = mock(ReservationRepository.class);
+        when(repository.findActiveIntervals(anyLong(), any(), any(), any()))
+                .thenAnswer(invocation -> List.copyOf(table.getOrDefault(invocation.<Long>getArgument(0), new ConcurrentLinkedQueue<>())));
+        index = new CarAvailabilityIndex(repository);
+    }
+
+    private long book(long carId, LocalDate from, LocalDate to) {
+        return index.book(carId, from, to, () -> {
+            long id = ids.incrementAndGet();
+            table.computeIfAbsent(carId, k -> new ConcurrentLinkedQueue<>()).add(new BookedInterval(id, from, to));
+            return id;
+        });
+    }
+
+    private void release(long carId, long reservationId) {
+        table.getOrDefault(carId, new ConcurrentLinkedQueue<>()).removeIf(i -> i.reservationId() == reservationId);
+        index.release(carId, reservationId);
+    }
+
+    @Test
+    void rejectsOverlappingRangesAndAcceptsAdjacentOnes() {
+        book(1L, DAY_ZERO, DAY_ZERO.plusDays(3));
+
+        assertThatThrownBy(() -> book(1L, DAY_ZERO.plusDays(2), DAY_ZERO.plusDays(5)))
+                .isInstanceOf(ReservationConflictException.class);
+
+        // Half-open ranges: pick-up on the return day is allowed
+        book(1L, DAY_ZERO.plusDays(3), DAY_ZERO.plusDays(5));
+        book(2L, DAY_ZERO, DAY_ZERO.plusDays(3));
+
+        assertThat(index.isFree(1L, DAY_ZERO.minusDays(1), DAY_ZERO)).isTrue();
+        assertThat(index.isFree(1L, DAY_ZERO.plusDays(4), DAY_ZERO.plusDays(6))).isFalse();
+    }
+
+    @Test
+    void releasedRangeCanBeBookedAgain() {
+        long id = book(1L, DAY_ZERO, DAY_ZERO.plusDays(2));
+        release(1L, id);
+
+        book(1L, DAY_ZERO.plusDays(1), DAY_ZERO.plusDays(2));
+    }
+
+    @Test
+    void sameSlotRequestedConcurrentlyIsGrantedOnce() throws Exception {
+        int threads = 64;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.submit(() -> {
+                start.await();
+                try {
+                    book(7L, DAY_ZERO, DAY_ZERO.plusDays(2));
+                    granted.incrementAndGet();
+                } catch (ReservationConflictException ignored) {
+                    // Expected for every request but one
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(granted.get()).isEqualTo(1);
+    }
+
+    @Test
+    void noDoubleBookingUnderConcurrentLoad() throws Exception {
+        int threads = 32;
+        int attemptsPerThread = 2_000;
+        int cars = 8;
+        Queue<Booking> accepted = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    long carId = random.nextInt(cars) + 1;
+                    LocalDate from = DAY_ZERO.plusDays(random.nextInt(365));
+                    LocalDate to = from.plusDays(random.nextInt(1, 8));
+                    try {
+                        long id = book(carId, from, to);
+                        accepted.add(new Booking(carId, new BookedInterval(id, from, to)));
+                    } catch (ReservationConflictException ignored) {
+                        // Conflicts are the expected outcome for most attempts
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(accepted).isNotEmpty();
+        Map<Long, List<BookedInterval>> byCar = accepted.stream()
+                .collect(Collectors.groupingBy(Booking::carId,
+                        Collectors.mapping(Booking::interval, Collectors.toCollection(ArrayList::new))));
+        byCar.values().forEach(intervals -> {
+            intervals.sort(Comparator.comparing(BookedInterval::startDate));
+            for (int i = 1; i < intervals.size(); i++) {
+                assertThat(intervals.get(i).startDate())
+                        .as("booking %s overlaps %s", intervals.get(i), intervals.get(i - 1))
+                        .isAfterOrEqualTo(intervals.get(i - 1).endDate());
+            }
+        });
+    }
+
+    private record Booking(long carId, BookedInterval interval) {
+    }
+}
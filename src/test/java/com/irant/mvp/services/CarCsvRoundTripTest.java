@@ -0,0 +1,56 @@
+package com.irant.mvp.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Fields written by the fleet export read back unchanged by the import, line breaks included
+ */
+class CarCsvRoundTripTest {
+
+    private static String exportLine(List<String> values) {
+        return values.stream().map(CarExportService::csv).collect(Collectors.joining(","));
+    }
+
+    @Test
+    void quotedLineBreaksSurviveExportThenImport() throws IOException {
+        List<String> header = List.of("brand", "model", "description", "city");
+        List<String> first = List.of("Peugeot", "208", "Clim, GPS\nRevisée en \"mars\"\r\nNon-fumeur", "Tunis");
+        List<String> second = List.of("Renault", "Clio", "Simple", "Sfax");
+        String csv = exportLine(header) + "\n" + exportLine(first) + "\n" + exportLine(second) + "\n";
+
+        BufferedReader reader = new BufferedReader(new StringReader(csv));
+
+        assertThat(CarImportService.readCsvRecord(reader)).isEqualTo(header);
+        assertThat(CarImportService.readCsvRecord(reader)).isEqualTo(first);
+        assertThat(CarImportService.readCsvRecord(reader)).isEqualTo(second);
+        assertThat(CarImportService.readCsvRecord(reader)).isNull();
+    }
+
+    @Test
+    void acceptsCrLfAndCrRecordEnds() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("a,b\r\nc,\"d\"\re,f"));
+
+        assertThat(CarImportService.readCsvRecord(reader)).containsExactly("a", "b");
+        assertThat(CarImportService.readCsvRecord(reader)).containsExactly("c", "d");
+        assertThat(CarImportService.readCsvRecord(reader)).containsExactly("e", "f");
+        assertThat(CarImportService.readCsvRecord(reader)).isNull();
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() {
+        BufferedReader reader = new BufferedReader(new StringReader("a,\"never closed\nb,c\n"));
+
+        assertThatThrownBy(() -> CarImportService.readCsvRecord(reader))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+    }
+}
@@ -0,0 +1,174 @@
+package com.irant.mvp.services;
+
+import com.irant.mvp.dto.CarDetail;
+import com.irant.mvp.exceptions.CarVersionConflictException;
+import com.irant.mvp.models.Agency;
+import com.irant.mvp.models.Car;
+import com.irant.mvp.models.User;
+import com.irant.mvp.repositories.AgencyRepository;
+import com.irant.mvp.repositories.CarRepository;
+import com.irant.mvp.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Version-checked car updates from many threads: every increment lands exactly once, none is lost
+ */
+@SpringBootTest
+class CarVersionConcurrencyTest {
+
+    private static final int WRITERS = 16;
+    private static final int INCREMENTS_PER_WRITER = 10;
+    private static final BigDecimal START_PRICE = new BigDecimal("100.00");
+
+    @Autowired
+    private CarService carService;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private AgencyRepository agencyRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private Agency agency;
+    private Long carId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = userRepository.save(User.builder()
+                .email("fleet-" + suffix + "@example.com")
+                .password("not-a-real-hash")
+                .firstName("Fleet")
+                .lastName("Manager")
+                .build());
+        agency = agencyRepository.save(Agency.builder()
+                .name("Agency " + suffix)
+                .email("agency-" + suffix + "@example.com")
+                .user(owner)
+                .build());
+        carId = carRepository.save(Car.builder()
+                .brand("Peugeot")
+                .model("208")
+                .year(2022)
+                .pricePerDay(START_PRICE)
+                .licensePlate("TEST-" + suffix)
+                .agency(agency)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        carRepository.deleteById(carId);
+        agencyRepository.deleteById(agency.getId());
+        userRepository.deleteById(owner.getId());
+    }
+
+    /**
+     * Read-increment-write with compare-and-set, retried on conflict
+     */
+    private void incrementPrice(AtomicInteger conflicts) {
+        while (true) {
+            CarDetail current = carRepository.findDetailById(carId).orElseThrow();
+            Car change = Car.builder()
+                    .pricePerDay(current.pricePerDay().add(BigDecimal.ONE))
+                    .isAvailable(null)
+                    .build();
+            try {
+                carService.updateCar(carId, change, owner.getId(), current.version());
+                return;
+            } catch (CarVersionConflictException e) {
+                conflicts.incrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    void concurrentVersionCheckedUpdatesLoseNothing() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS)) {
+            for (int w = 0; w < WRITERS; w++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS_PER_WRITER; i++) {
+                        incrementPrice(conflicts);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        }
+
+        int total = WRITERS * INCREMENTS_PER_WRITER;
+        CarDetail result = carRepository.findDetailById(carId).orElseThrow();
+        assertThat(result.pricePerDay()).isEqualByComparingTo(START_PRICE.add(BigDecimal.valueOf(total)));
+        assertThat(result.version()).as("version after %d conflicts retried", conflicts.get()).isEqualTo(total);
+        assertThat(result.isAvailable()).isTrue();
+    }
+
+    @Test
+    void staleVersionIsRejectedWithTheCurrentOne() {
+        long read = carRepository.findDetailById(carId).orElseThrow().version();
+        carService.updateCar(carId, Car.builder().city("Sousse").isAvailable(null).build(), owner.getId(), read);
+
+        assertThatThrownBy(() -> carService.updateCar(carId,
+                Car.builder().city("Tunis").isAvailable(null).build(), owner.getId(), read))
+                .isInstanceOfSatisfying(CarVersionConflictException.class,
+                        e -> assertThat(e.getCurrent().version()).isEqualTo(read + 1));
+        assertThat(carRepository.findDetailById(carId).orElseThrow().city()).isEqualTo("Sousse");
+    }
+
+    @Test
+    void staleDeactivationDoesNotOverwriteAConcurrentUpdate() {
+        long read = carRepository.findDetailById(carId).orElseThrow().version();
+        carService.updateCar(carId, Car.builder().isAvailable(true).build(), owner.getId(), read);
+
+        assertThatThrownBy(() -> carService.deactivateCar(carId, owner.getId(), read))
+                .isInstanceOfSatisfying(CarVersionConflictException.class,
+                        e -> assertThat(e.getCurrent().version()).isEqualTo(read + 1));
+        assertThat(carRepository.findDetailById(carId).orElseThrow().isAvailable()).isTrue();
+
+        carService.deactivateCar(carId, owner.getId(), read + 1);
+        CarDetail result = carRepository.findDetailById(carId).orElseThrow();
+        assertThat(result.isAvailable()).isFalse();
+        assertThat(result.version()).isEqualTo(read + 2);
+    }
+
+    @Test
+    void versionCheckedUpdateWithImagesBumpsTheVersionOnce() {
+        long read = carRepository.findDetailById(carId).orElseThrow().version();
+
+        carService.updateCar(carId, Car.builder()
+                .city("Bizerte")
+                .imageUrls(List.of("https://img.example.com/1.jpg", "https://img.example.com/2.jpg"))
+                .isAvailable(null)
+                .build(), owner.getId(), read);
+
+        assertThat(carRepository.findDetailById(carId).orElseThrow().version()).isEqualTo(read + 1);
+        assertThat(carRepository.findImageUrlsById(carId))
+                .containsExactlyInAnyOrder("https://img.example.com/1.jpg", "https://img.example.com/2.jpg");
+    }
+}